@@ -11,38 +11,59 @@ import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.StartContainerCmd;
-import com.github.dockerjava.api.model.Container;
-import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.Version;
-import com.github.dockerjava.core.NameParser;
+import com.nirima.jenkins.plugins.docker.client.AsyncDockerClient;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
 import com.nirima.jenkins.plugins.docker.launcher.DockerComputerLauncher;
+import com.nirima.jenkins.plugins.docker.utils.CapacityCounter;
+import com.nirima.jenkins.plugins.docker.utils.CircuitBreaker;
+import com.nirima.jenkins.plugins.docker.utils.ContainerResources;
+import com.nirima.jenkins.plugins.docker.utils.ImagePullProgress;
+import com.nirima.jenkins.plugins.docker.utils.ResourceCounter;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.*;
 import hudson.slaves.Cloud;
 import hudson.slaves.ComputerLauncher;
 import hudson.slaves.NodeProvisioner;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import shaded.com.google.common.base.Function;
 import shaded.com.google.common.base.MoreObjects;
 import shaded.com.google.common.base.Preconditions;
-import shaded.com.google.common.base.Predicate;
 import shaded.com.google.common.base.Throwables;
-import shaded.com.google.common.collect.Iterables;
+import shaded.com.google.common.util.concurrent.AsyncFunction;
+import shaded.com.google.common.util.concurrent.FutureCallback;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.ListeningExecutorService;
+import shaded.com.google.common.util.concurrent.MoreExecutors;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.ws.rs.ProcessingException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin.dockerClientConfig;
 
@@ -63,18 +84,128 @@ public class DockerCloud extends Cloud {
     public final String version;
     public final String credentialsId;
 
-    private transient DockerClient connection;
+    /**
+     * More docker urls to run containers on besides {@link #serverUrl}, one per line.
+     */
+    private String hostUrls;
 
     /**
-     * Total max allowed number of containers
+     * Max containers per docker host, 0 for unlimited.
      */
-    private int containerCap = 100;
+    private int hostContainerCap = 0;
+
+    /**
+     * Memory per docker host for containers with a memory limit, 0 to ask the daemon.
+     */
+    private int hostMemoryMB = 0;
+
+    /**
+     * Cpu shares per docker host for containers with cpu shares, 0 to ask the daemon (1024 per cpu).
+     */
+    private int hostCpuShares = 0;
+
+    /**
+     * Max containers being created, started and inspected at the same time.
+     */
+    private int maxParallelStarts = DEFAULT_MAX_PARALLEL_STARTS;
+
+    public static final int DEFAULT_MAX_PARALLEL_STARTS = 4;
+
+    /**
+     * Keep-alive connections pooled per host, shared by all users of the host's client.
+     */
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 10;
+
+    /**
+     * Docker calls of this cloud running at the same time, others wait in the queue of {@link #asyncClient}.
+     */
+    private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 8;
+
+    /**
+     * Seconds a container may take to stop before docker kills it.
+     */
+    private int stopTimeout = DEFAULT_STOP_TIMEOUT;
+
+    public static final int DEFAULT_STOP_TIMEOUT = 10;
+
+    /**
+     * Containers of terminated slaves being stopped and removed at the same time.
+     */
+    private int maxParallelTeardowns = DEFAULT_MAX_PARALLEL_TEARDOWNS;
+
+    public static final int DEFAULT_MAX_PARALLEL_TEARDOWNS = 4;
+
+    /**
+     * Share of failed or slow recent docker calls that stops provisioning in this cloud for a while.
+     */
+    public static final double MAX_FAILURE_RATE = 0.5;
+
+    // per cloud state, set up by initTransients() for both new and deserialized clouds
+
+    /**
+     * {@link #serverUrl} first, then {@link #hostUrls}.
+     */
+    private transient volatile List<DockerHost> hosts;
+
+    /**
+     * Containers per host being started, but not necessarily reported yet by docker.
+     */
+    private transient CapacityCounter<DockerHost> hostStarts;
+
+    /**
+     * Memory and cpu shares of containers being provisioned, before they are placed on a host.
+     */
+    private transient ResourceCounter plannedResources;
+
+    /**
+     * {@link #maxParallelStarts} permits.
+     */
+    private transient volatile Semaphore startPermits;
+
+    /**
+     * Runs docker calls off Jenkins' shared threads, {@link #maxConcurrentCalls} at a time.
+     */
+    private transient volatile AsyncDockerClient asyncClient;
+
+    /**
+     * Runs provisioning up to its docker calls: taking pooled containers, image pulls and waits for
+     * {@link #startPermits}, so these don't hold the threads of {@link #asyncClient} from other calls.
+     * Unbounded, provisions in flight are bounded by the caps of the cloud.
+     */
+    private transient ListeningExecutorService provisioner;
+
+    private transient CircuitBreaker circuitBreaker;
+
+    private transient DockerTeardown teardown;
+
+    private transient DockerWarmPool warmPool;
+
+    /**
+     * Containers per image being provisioned, but not necessarily reported yet by docker.
+     * Keyed by image like {@link DockerTemplate#instanceCap} is checked, so templates sharing an image share it.
+     */
+    private transient CapacityCounter<String> provisioning;
+
+    /**
+     * Containers handed to provisioning, with when their provisioning ended, {@link Long#MAX_VALUE} while it runs.
+     */
+    private transient ConcurrentHashMap<String, Long> handedOut;
+
+    /**
+     * Position of {@link DockerTemplateSelection#ROUND_ROBIN}.
+     */
+    private transient AtomicInteger templateCursor;
 
     /**
-     * Track the count per image name for images currently being
-     * provisioned, but not necessarily reported yet by docker.
+     * Total max allowed number of containers
      */
-    private static final HashMap<String, Integer> provisionedImages = new HashMap<>();
+    private int containerCap = 100;
+
+    private @CheckForNull DockerTemplateSelection templateSelection = DockerTemplateSelection.FIRST;
 
     @Deprecated
     public DockerCloud(String name,
@@ -104,6 +235,8 @@ public class DockerCloud extends Cloud {
         } else {
             setContainerCap(Integer.parseInt(containerCapStr));
         }
+
+        initTransients();
     }
 
     @DataBoundConstructor
@@ -130,6 +263,25 @@ public class DockerCloud extends Cloud {
         }
 
         setContainerCap(containerCap);
+
+        initTransients();
+    }
+
+    private void initTransients() {
+        hosts = createHosts();
+        hostStarts = new CapacityCounter<>();
+        plannedResources = new ResourceCounter();
+        startPermits = new Semaphore(getMaxParallelStarts());
+        asyncClient = new AsyncDockerClient(getDisplayName(), getMaxConcurrentCalls());
+        provisioner = MoreExecutors.listeningDecorator(new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES,
+                new SynchronousQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Docker provisioning for " + getDisplayName())));
+        circuitBreaker = new CircuitBreaker(MAX_FAILURE_RATE, TimeUnit.SECONDS.toMillis(readTimeout) / 2);
+        teardown = new DockerTeardown(this);
+        warmPool = new DockerWarmPool(this);
+        provisioning = new CapacityCounter<>();
+        handedOut = new ConcurrentHashMap<>();
+        templateCursor = new AtomicInteger();
     }
 
     public int getConnectTimeout() {
@@ -156,45 +308,251 @@ public class DockerCloud extends Cloud {
         this.containerCap = containerCap;
     }
 
+    public DockerTemplateSelection getTemplateSelection() {
+        return templateSelection == null ? DockerTemplateSelection.FIRST : templateSelection;
+    }
+
+    @DataBoundSetter
+    public void setTemplateSelection(DockerTemplateSelection templateSelection) {
+        this.templateSelection = templateSelection;
+    }
+
+    public String getHostUrls() {
+        return hostUrls;
+    }
+
+    @DataBoundSetter
+    public void setHostUrls(String hostUrls) {
+        this.hostUrls = hostUrls;
+        this.hosts = createHosts();
+    }
+
+    public int getHostContainerCap() {
+        return hostContainerCap;
+    }
+
+    @DataBoundSetter
+    public void setHostContainerCap(int hostContainerCap) {
+        this.hostContainerCap = Math.max(hostContainerCap, 0);
+    }
+
+    public int getHostMemoryMB() {
+        return hostMemoryMB;
+    }
+
+    @DataBoundSetter
+    public void setHostMemoryMB(int hostMemoryMB) {
+        this.hostMemoryMB = Math.max(hostMemoryMB, 0);
+    }
+
+    public int getHostCpuShares() {
+        return hostCpuShares;
+    }
+
+    @DataBoundSetter
+    public void setHostCpuShares(int hostCpuShares) {
+        this.hostCpuShares = Math.max(hostCpuShares, 0);
+    }
+
+    public int getMaxParallelStarts() {
+        // absent in older configs
+        return maxParallelStarts > 0 ? maxParallelStarts : DEFAULT_MAX_PARALLEL_STARTS;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelStarts(int maxParallelStarts) {
+        this.maxParallelStarts = maxParallelStarts;
+        this.startPermits = new Semaphore(getMaxParallelStarts());
+    }
+
+    public int getMaxConnections() {
+        // absent in older configs
+        return maxConnections > 0 ? maxConnections : DEFAULT_MAX_CONNECTIONS;
+    }
+
+    @DataBoundSetter
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConcurrentCalls() {
+        // absent in older configs
+        return maxConcurrentCalls > 0 ? maxConcurrentCalls : DEFAULT_MAX_CONCURRENT_CALLS;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        final AsyncDockerClient previous = this.asyncClient;
+        this.asyncClient = new AsyncDockerClient(getDisplayName(), getMaxConcurrentCalls());
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    public int getStopTimeout() {
+        // absent in older configs
+        return stopTimeout > 0 ? stopTimeout : DEFAULT_STOP_TIMEOUT;
+    }
+
+    @DataBoundSetter
+    public void setStopTimeout(int stopTimeout) {
+        this.stopTimeout = stopTimeout;
+    }
+
+    public int getMaxParallelTeardowns() {
+        // absent in older configs
+        return maxParallelTeardowns > 0 ? maxParallelTeardowns : DEFAULT_MAX_PARALLEL_TEARDOWNS;
+    }
+
+    @DataBoundSetter
+    public void setMaxParallelTeardowns(int maxParallelTeardowns) {
+        this.maxParallelTeardowns = maxParallelTeardowns;
+    }
+
+    /**
+     * Stops and removes containers of terminated slaves.
+     */
+    DockerTeardown getTeardown() {
+        return teardown;
+    }
+
+    /**
+     * Docker calls of this cloud that should not hold Jenkins' shared threads, see {@link DockerHost#submit}.
+     */
+    public AsyncDockerClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    private List<DockerHost> createHosts() {
+        final Set<String> urls = new LinkedHashSet<>();
+        urls.add(serverUrl);
+        if (hostUrls != null) {
+            for (String url : hostUrls.split("\\s+")) {
+                if (!url.isEmpty()) {
+                    urls.add(url);
+                }
+            }
+        }
+
+        final List<DockerHost> result = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            result.add(new DockerHost(this, url));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
     /**
      * Connects to Docker.
      *
-     * @return Docker client.
+     * @return Docker client of the first host, {@link #serverUrl}.
      */
-    public synchronized DockerClient getClient() {
-        if (connection == null) {
-            connection = dockerClientConfig().forCloud(this).buildClient();
-        }
+    public DockerClient getClient() {
+        return getHosts().get(0).getClient();
+    }
 
-        return connection;
+    /**
+     * Docker hosts of this cloud, {@link #serverUrl} first.
+     */
+    public List<DockerHost> getHosts() {
+        return hosts;
     }
 
     /**
-     * Decrease the count of slaves being "provisioned".
+     * @param serverUrl url of a host, null for the first host
+     * @return the host with the url, or the first host if there is no such host (anymore)
      */
-    private void decrementAmiSlaveProvision(String ami) {
-        synchronized (provisionedImages) {
-            int currentProvisioning;
+    public DockerHost getHost(@Nullable String serverUrl) {
+        for (DockerHost host : getHosts()) {
+            if (host.getServerUrl().equals(serverUrl)) {
+                return host;
+            }
+        }
+        return getHosts().get(0);
+    }
+
+    /**
+     * @return available host that runs the container, null if none is known to
+     */
+    @CheckForNull
+    public DockerHost getHostOf(String containerId) {
+        for (DockerHost host : getHosts()) {
             try {
-                currentProvisioning = provisionedImages.get(ami);
-            } catch (NullPointerException npe) {
-                return;
+                if (host.isAvailable() && host.getContainerInventory().contains(containerId)) {
+                    return host;
+                }
+            } catch (RuntimeException ex) {
+                host.recordFailure(ex);
             }
-            provisionedImages.put(ami, Math.max(currentProvisioning - 1, 0));
+        }
+        return null;
+    }
+
+    /**
+     * Pre-started containers of templates with a warm pool.
+     */
+    public DockerWarmPool getWarmPool() {
+        return warmPool;
+    }
+
+    /**
+     * Whether the container is being provisioned, or its provisioning ended less than
+     * {@code graceMillis} ago, so its node may not be added yet.
+     */
+    boolean isHandedOut(String containerId, long now, long graceMillis) {
+        final Long ended = handedOut.get(containerId);
+        return ended != null && now - ended < graceMillis;
+    }
+
+    /**
+     * Forgets containers whose provisioning ended at least {@code graceMillis} ago.
+     */
+    void pruneHandedOut(long now, long graceMillis) {
+        for (Map.Entry<String, Long> e : handedOut.entrySet()) {
+            if (now - e.getValue() >= graceMillis) {
+                handedOut.remove(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * A started or pooled container is used to provision a node, see {@link DockerOrphanReaper}.
+     */
+    void recordHandedOut(String containerId) {
+        handedOut.put(containerId, Long.MAX_VALUE);
+    }
+
+    /**
+     * Provisioning with the container ended, its node was added or it failed.
+     */
+    void recordProvisioned(String containerId) {
+        handedOut.put(containerId, System.currentTimeMillis());
+    }
+
+    /**
+     * Decrease the count of slaves being "provisioned".
+     */
+    void releaseProvisionedSlave(DockerTemplate t) {
+        provisioning.release(t.getDockerTemplateBase().getImage());
+        final ContainerResources amount = resourcesOf(t);
+        if (!amount.isNone()) {
+            plannedResources.release(amount);
         }
     }
 
     @Override
-    public synchronized Collection<NodeProvisioner.PlannedNode> provision(Label label, int excessWorkload) {
+    public Collection<NodeProvisioner.PlannedNode> provision(Label label, int excessWorkload) {
         try {
             LOGGER.info("Asked to provision {} slave(s) for: {}", new Object[]{excessWorkload, label});
 
             List<NodeProvisioner.PlannedNode> r = new ArrayList<>();
 
             final List<DockerTemplate> templates = getTemplates(label);
+            final DockerTemplateSelection selection = getTemplateSelection();
+            final Map<DockerTemplate, DockerProvisioningBatch> batches = new HashMap<>();
 
             while (excessWorkload > 0 && !templates.isEmpty()) {
-                final DockerTemplate t = templates.get(0); // get first
+                final DockerTemplate t = selection.select(this, templates);
 
                 LOGGER.info("Will provision '{}', for label: '{}', in cloud: '{}'",
                         t.getDockerTemplateBase().getImage(), label, getDisplayName());
@@ -211,21 +569,65 @@ public class DockerCloud extends Cloud {
                     continue;
                 }
 
+                DockerProvisioningBatch batch = batches.get(t);
+                if (batch == null) {
+                    batch = new DockerProvisioningBatch(this, t);
+                    batches.put(t, batch);
+                }
+                final DockerProvisioningBatch finalBatch = batch;
+
+                // pulls and start permits are waited for by the provisioner, only the docker calls queue on the
+                // cloud's threads for them and only waiting for the launcher uses Jenkins' pool
+                final AtomicBoolean pooled = new AtomicBoolean();
+                final AtomicReference<String> containerId = new AtomicReference<>();
+                final ListenableFuture<DockerStartedContainer> started = provisioner.submit(
+                        new Callable<DockerStartedContainer>() {
+                            @Override
+                            public DockerStartedContainer call() throws Exception {
+                                DockerStartedContainer container = getWarmPool().take(t);
+                                if (container != null) {
+                                    LOGGER.info("Using pooled container {} for {}", container.getId(),
+                                            t.getDockerTemplateBase().getImage());
+                                    pooled.set(true);
+                                } else {
+                                    container = runContainer(t, finalBatch);
+                                }
+                                // has no node until provisioning ends, the reaper must not take it for an orphan
+                                recordHandedOut(container.getId());
+                                containerId.set(container.getId());
+                                return container;
+                            }
+                        });
+                final ListenableFuture<Node> node = Futures.transform(started,
+                        new AsyncFunction<DockerStartedContainer, Node>() {
+                            @Override
+                            public ListenableFuture<Node> apply(DockerStartedContainer container) {
+                                return provisionWhenUp(t, container, pooled.get());
+                            }
+                        });
+                Futures.addCallback(node, new FutureCallback<Node>() {
+                    @Override
+                    public void onSuccess(Node result) {
+                        provisioned();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable ex) {
+                        LOGGER.error("Error in provisioning; template='{}' for cloud='{}'", t, getDisplayName(), ex);
+                        provisioned();
+                    }
+
+                    private void provisioned() {
+                        releaseProvisionedSlave(t);
+                        if (containerId.get() != null) {
+                            recordProvisioned(containerId.get());
+                        }
+                    }
+                });
+
                 r.add(new NodeProvisioner.PlannedNode(
                                 t.getDockerTemplateBase().getDisplayName(),
-                                Computer.threadPoolForRemoting.submit(new Callable<Node>() {
-                                    public Node call() throws Exception {
-                                        try {
-                                            return provisionWithWait(t);
-                                        } catch (Exception ex) {
-                                            LOGGER.error("Error in provisioning; template='{}' for cloud='{}'",
-                                                    t, getDisplayName(), ex);
-                                            throw Throwables.propagate(ex);
-                                        } finally {
-                                            decrementAmiSlaveProvision(t.getDockerTemplateBase().getImage());
-                                        }
-                                    }
-                                }),
+                                node,
                                 t.getNumExecutors())
                 );
 
@@ -246,25 +648,58 @@ public class DockerCloud extends Cloud {
                                       DockerClient dockerClient,
                                       DockerComputerLauncher launcher)
             throws DockerException, IOException {
+        return runContainer(dockerTemplate, dockerClient, null, launcher, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Run docker container with labels, see {@link DockerContainerLabels}
+     *
+     * @param host host of the client, lets the launcher contribute host specific options
+     */
+    public static String runContainer(DockerTemplate dockerTemplate,
+                                      DockerClient dockerClient,
+                                      @Nullable DockerHost host,
+                                      DockerComputerLauncher launcher,
+                                      Map<String, String> labels)
+            throws DockerException, IOException {
+        final String containerId = createContainer(dockerTemplate, dockerClient, host, launcher, labels);
+
+        // start
+        StartContainerCmd startCommand = dockerClient.startContainerCmd(containerId);
+        startCommand.exec();
+
+        return containerId;
+    }
+
+    /**
+     * Same as {@link #runContainer(DockerTemplate, DockerClient, DockerHost, DockerComputerLauncher, Map)},
+     * without starting the container.
+     */
+    public static String createContainer(DockerTemplate dockerTemplate,
+                                         DockerClient dockerClient,
+                                         @Nullable DockerHost host,
+                                         DockerComputerLauncher launcher,
+                                         Map<String, String> labels)
+            throws DockerException, IOException {
         final DockerTemplateBase dockerTemplateBase = dockerTemplate.getDockerTemplateBase();
         CreateContainerCmd containerConfig = dockerClient.createContainerCmd(dockerTemplateBase.getImage());
 
         dockerTemplateBase.fillContainerConfig(containerConfig);
 
+        if (!labels.isEmpty()) {
+            containerConfig.withLabels(labels);
+        }
+
         // contribute launcher specific options
-        if (launcher != null) {
+        if (launcher != null && host != null) {
+            launcher.appendContainerConfig(host, dockerTemplate, containerConfig);
+        } else if (launcher != null) {
             launcher.appendContainerConfig(dockerTemplate, containerConfig);
         }
 
         // create
         CreateContainerResponse response = containerConfig.exec();
-        String containerId = response.getId();
-
-        // start
-        StartContainerCmd startCommand = dockerClient.startContainerCmd(containerId);
-        startCommand.exec();
-
-        return containerId;
+        return response.getId();
     }
 
     /**
@@ -293,56 +728,122 @@ public class DockerCloud extends Cloud {
         return containerId;
     }
 
-    private void pullImage(DockerTemplate dockerTemplate)  throws IOException {
+    /**
+     * Concurrent provisions of the same image wait for the pull that is already running.
+     */
+    void pullImage(final DockerTemplate dockerTemplate, final DockerHost host) throws IOException {
         final String imageName = dockerTemplate.getDockerTemplateBase().getImage();
 
-        List<Image> images = getClient().listImagesCmd().exec();
+        try {
+            host.getImagePulls().execute(DockerImageIndex.fullImageName(imageName), new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    doPullImage(dockerTemplate, host);
+                    return null;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to pull image '" + imageName + "'", e);
+        }
+    }
 
-        NameParser.ReposTag repostag = NameParser.parseRepositoryTag(imageName);
-        // if image was specified without tag, then treat as latest
-        final String fullImageName = repostag.repos + ":" + (repostag.tag.isEmpty() ? "latest" : repostag.tag);
+    private void doPullImage(DockerTemplate dockerTemplate, DockerHost host) throws IOException {
+        final String imageName = dockerTemplate.getDockerTemplateBase().getImage();
 
-        boolean imageExists = Iterables.any(images, new Predicate<Image>() {
-            @Override
-            public boolean apply(Image image) {
-                return Arrays.asList(image.getRepoTags()).contains(fullImageName);
-            }
-        });
+        boolean imageExists = host.getImageIndex().contains(imageName);
 
         boolean pull = imageExists ?
                 dockerTemplate.getPullStrategy().pullIfExists(imageName) :
                 dockerTemplate.getPullStrategy().pullIfNotExists(imageName);
 
         if (pull) {
-            LOGGER.info("Pulling image '{}' {}. This may take awhile...", imageName,
+            LOGGER.info("Pulling image '{}' on '{}' {}. This may take awhile...", imageName, host.getServerUrl(),
                     imageExists ? "again" : "since one was not found");
 
-            long startTime = System.currentTimeMillis();
-            //Identifier amiId = Identifier.fromCompoundString(ami);
-            try (InputStream imageStream = getClient().pullImageCmd(imageName).exec()) {
-                int streamValue = 0;
-                while (streamValue != -1) {
-                    streamValue = imageStream.read();
-                }
+            final ImagePullProgress progress;
+            try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+                progress = new ImagePullProgress(imageName, null)
+                        .consume(lease.getClient().pullImageCmd(imageName).exec());
             }
-            long pullTime = System.currentTimeMillis() - startTime;
-            LOGGER.info("Finished pulling image '{}', took {} ms", imageName, pullTime);
+            host.getImageIndex().invalidate();
+            LOGGER.info("Finished pulling image '{}', took {} ms", imageName, progress.getDurationMillis());
         }
     }
 
-    private DockerSlave provisionWithWait(DockerTemplate dockerTemplate) throws IOException, Descriptor.FormException {
-        pullImage(dockerTemplate);
+    /**
+     * Creates the slave of the container once the launcher can connect to it. No thread is held while
+     * the container comes up, unless the readiness of the launcher needs one, see {@link DockerComputerLauncher#whenUp}.
+     *
+     * @param pooled the container comes from the warm pool and is up already
+     */
+    private ListenableFuture<Node> provisionWhenUp(final DockerTemplate dockerTemplate,
+                                                   final DockerStartedContainer container, boolean pooled) {
+        final ListenableFuture<Boolean> up = pooled ? Futures.immediateFuture(true)
+                : dockerTemplate.getLauncher().whenUp(container.getHost(), dockerTemplate, container.getInspect());
+        return Futures.transform(up, new Function<Boolean, Node>() {
+            @Override
+            public Node apply(Boolean ready) {
+                try {
+                    if (!ready) {
+                        throw removeNotReady(dockerTemplate, container);
+                    }
+                    final DockerSlave added = container.getSlave();
+                    return added != null ? added : createSlave(dockerTemplate, container);
+                } catch (IOException | Descriptor.FormException ex) {
+                    throw Throwables.propagate(ex);
+                }
+            }
+        }, Computer.threadPoolForRemoting);
+    }
 
-        LOGGER.info("Trying to run container for {}", dockerTemplate.getDockerTemplateBase().getImage());
-        final String containerId = runContainer(dockerTemplate, getClient(), dockerTemplate.getLauncher());
+    /**
+     * Removes a container that didn't get ready in time, so it neither lingers without a node
+     * nor counts against the caps.
+     *
+     * @return failure to provision it with
+     */
+    private IOException removeNotReady(DockerTemplate dockerTemplate, DockerStartedContainer container) {
+        final DockerHost host = container.getHost();
+        final String containerId = container.getId();
+        final IOException notReady = new IOException("Container " + containerId + " of '"
+                + dockerTemplate.getDockerTemplateBase().getImage() + "' on " + host.getDisplayName()
+                + " did not get ready");
+
+        final DockerSlave added = container.getSlave();
+        if (added != null) {
+            // tears the container down too
+            terminate(added);
+            return notReady;
+        }
 
-        InspectContainerResponse ir;
+        final long started = System.currentTimeMillis();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            lease.getClient().removeContainerCmd(containerId).withForce(true).exec();
+            host.recordCall(started, null);
+            host.getContainerInventory().recordRemoved(containerId);
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            LOGGER.warn("Failed to remove container {} that is not ready: {}", containerId, ex.getMessage());
+        }
+        return notReady;
+    }
+
+    private static void terminate(DockerSlave slave) {
         try {
-            ir = getClient().inspectContainerCmd(containerId).exec();
-        } catch (ProcessingException ex) {
-            getClient().removeContainerCmd(containerId).withForce(true).exec();
-            throw ex;
+            slave.terminate();
+        } catch (InterruptedException | IOException ex) {
+            LOGGER.warn("Failed to terminate slave {} of container {}", slave.getNodeName(), slave.getContainerId(),
+                    ex);
         }
+    }
+
+    private DockerSlave createSlave(DockerTemplate dockerTemplate, DockerStartedContainer container)
+            throws IOException, Descriptor.FormException {
+        final DockerHost host = container.getHost();
+        final InspectContainerResponse ir = container.getInspect();
+        final String containerId = ir.getId();
 
         // Build a description up:
         String nodeDescription = "Docker Node [" + dockerTemplate.getDockerTemplateBase().getImage() + " on ";
@@ -356,23 +857,261 @@ public class DockerCloud extends Cloud {
         String slaveName = containerId.substring(0, 12);
 
         try {
-            slaveName = getDisplayName() + "-" + slaveName;
+            final String labelled = DockerContainerLabels.nodeNameOf(ir);
+            slaveName = labelled != null ? labelled : DockerContainerLabels.nodeName(getDisplayName(), containerId);
         } catch (Exception ex) {
             LOGGER.warn("Error fetching cloud name");
         }
 
-        dockerTemplate.getLauncher().waitUp(getDisplayName(), dockerTemplate, ir);
+        final ComputerLauncher launcher = dockerTemplate.getLauncher().getPreparedLauncher(host, dockerTemplate, ir);
+
+        final DockerSlave slave = new DockerSlave(slaveName, nodeDescription, launcher, containerId, dockerTemplate, getDisplayName());
+        slave.setServerUrl(host.getServerUrl());
+        return slave;
+    }
+
+    /**
+     * Pulls the image if needed, runs a container on the host with most headroom
+     * and waits until the launcher can connect to it.
+     */
+    DockerStartedContainer startContainer(DockerTemplate dockerTemplate) throws IOException {
+        final DockerStartedContainer container = runContainer(dockerTemplate, (DockerProvisioningBatch) null);
+        if (!dockerTemplate.getLauncher().waitUp(container.getHost(), dockerTemplate, container.getInspect())) {
+            throw removeNotReady(dockerTemplate, container);
+        }
+        return container;
+    }
+
+    /**
+     * Pulls the image if needed and runs a container on the host with most headroom, without waiting for it.
+     *
+     * @param batch containers planned together with this one, they share the image pull
+     */
+    private DockerStartedContainer runContainer(final DockerTemplate dockerTemplate,
+                                                @Nullable DockerProvisioningBatch batch) throws IOException {
+        final ContainerResources resources = resourcesOf(dockerTemplate);
+        final DockerHost host = reserveHost(resources);
+        if (host == null) {
+            throw new IOException("No docker host of cloud '" + getDisplayName() + "' is available or below its cap");
+        }
+
+        try {
+            if (batch != null) {
+                batch.pullOnce(host);
+            } else {
+                pullImage(dockerTemplate, host);
+            }
+
+            final InspectContainerResponse ir;
+            final Semaphore permits = startPermits;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to start a container", e);
+            }
+            try {
+                LOGGER.info("Trying to run container for {} on {}", dockerTemplate.getDockerTemplateBase().getImage(),
+                        host.getServerUrl());
+                if (dockerTemplate.getLauncher().isSlaveAddedBeforeStart()) {
+                    return startWithSlave(dockerTemplate, host, resources);
+                }
+                ir = await(asyncClient.submit(new Callable<InspectContainerResponse>() {
+                    @Override
+                    public InspectContainerResponse call() throws IOException {
+                        return createAndStart(dockerTemplate, host, resources);
+                    }
+                }));
+            } finally {
+                permits.release();
+            }
+
+            return new DockerStartedContainer(host, ir);
+        } catch (ProcessingException ex) {
+            // transport failure, not a problem of the template
+            host.recordFailure(ex);
+            throw ex;
+        } finally {
+            hostStarts.release(host);
+            host.releaseResources(resources);
+        }
+    }
+
+    /**
+     * Creates, starts and inspects a container on the host, the docker round trips of {@link #runContainer}.
+     */
+    private InspectContainerResponse createAndStart(DockerTemplate dockerTemplate, DockerHost host,
+                                                    ContainerResources resources) throws IOException {
+        return start(dockerTemplate, host, resources, create(dockerTemplate, host));
+    }
+
+    /**
+     * Creates the container, adds its slave to Jenkins and only then starts it, for launchers whose
+     * containers connect as soon as they run. Docker calls go to {@link #asyncClient}, none under a lock of Jenkins.
+     */
+    private DockerStartedContainer startWithSlave(final DockerTemplate dockerTemplate, final DockerHost host,
+                                                  final ContainerResources resources) throws IOException {
+        final InspectContainerResponse created = await(asyncClient.submit(new Callable<InspectContainerResponse>() {
+            @Override
+            public InspectContainerResponse call() throws IOException {
+                return inspect(host, create(dockerTemplate, host));
+            }
+        }));
+
+        final DockerSlave slave;
+        try {
+            slave = createSlave(dockerTemplate, new DockerStartedContainer(host, created));
+        } catch (Descriptor.FormException ex) {
+            throw new IOException(ex);
+        }
+        // from here on terminating the slave tears the container down
+        try {
+            Jenkins.getInstance().addNode(slave);
+            final InspectContainerResponse ir = await(asyncClient.submit(new Callable<InspectContainerResponse>() {
+                @Override
+                public InspectContainerResponse call() {
+                    return start(dockerTemplate, host, resources, created.getId());
+                }
+            }));
+            return new DockerStartedContainer(host, ir, slave);
+        } catch (IOException | RuntimeException ex) {
+            terminate(slave);
+            throw ex;
+        }
+    }
+
+    /**
+     * @return id of the container created on the host
+     */
+    private String create(DockerTemplate dockerTemplate, DockerHost host) throws IOException {
+        final long started = System.currentTimeMillis();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            final String containerId = createContainer(dockerTemplate, lease.getClient(), host,
+                    dockerTemplate.getLauncher(), DockerContainerLabels.of(this, dockerTemplate));
+            host.recordCall(started, null);
+            return containerId;
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            throw ex;
+        }
+    }
+
+    private InspectContainerResponse inspect(DockerHost host, String containerId) {
+        final long started = System.currentTimeMillis();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            final InspectContainerResponse ir = lease.getClient().inspectContainerCmd(containerId).exec();
+            host.recordCall(started, null);
+            return ir;
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            throw ex;
+        }
+    }
 
-        final ComputerLauncher launcher = dockerTemplate.getLauncher().getPreparedLauncher(getDisplayName(), dockerTemplate, ir);
+    /**
+     * Starts the created container and inspects it running.
+     */
+    private InspectContainerResponse start(DockerTemplate dockerTemplate, DockerHost host,
+                                           ContainerResources resources, String containerId) {
+        final long started = System.currentTimeMillis();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            final DockerClient client = lease.getClient();
+            client.startContainerCmd(containerId).exec();
+            host.getContainerInventory().recordStarted(containerId, dockerTemplate.getDockerTemplateBase().getImage(),
+                    resources);
+
+            final InspectContainerResponse ir;
+            try {
+                ir = client.inspectContainerCmd(containerId).exec();
+            } catch (ProcessingException ex) {
+                client.removeContainerCmd(containerId).withForce(true).exec();
+                host.getContainerInventory().recordRemoved(containerId);
+                throw ex;
+            }
+            host.recordCall(started, null);
+            return ir;
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            throw ex;
+        }
+    }
 
-        return new DockerSlave(slaveName, nodeDescription, launcher, containerId, dockerTemplate, getDisplayName());
+    /**
+     * Waits for calls submitted to {@link #asyncClient}, rethrowing what they threw.
+     */
+    private static <T> T await(ListenableFuture<T> call) throws IOException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for docker", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Picks the available host with fewest running and starting containers that has room for
+     * the resources, and reserves a start on it.
+     *
+     * @return null if no host is available, all are at {@link #hostContainerCap} or out of memory or cpu
+     */
+    @CheckForNull
+    private DockerHost reserveHost(ContainerResources resources) {
+        final List<DockerHost> candidates = new ArrayList<>();
+        final Map<DockerHost, Integer> running = new HashMap<>();
+        final Map<DockerHost, Integer> load = new HashMap<>();
+        for (DockerHost host : getHosts()) {
+            if (!host.isAvailable()) {
+                continue;
+            }
+            final Integer count = host.countRunning();
+            if (count != null) {
+                candidates.add(host);
+                running.put(host, count);
+                load.put(host, count + hostStarts.get(host));
+            }
+        }
+
+        Collections.sort(candidates, new Comparator<DockerHost>() {
+            @Override
+            public int compare(DockerHost o1, DockerHost o2) {
+                return load.get(o1).compareTo(load.get(o2));
+            }
+        });
+
+        for (DockerHost host : candidates) {
+            if (hostStarts.tryReserve(host, 0, Integer.MAX_VALUE, running.get(host), hostContainerCap)) {
+                if (host.tryReserveResources(resources)) {
+                    return host;
+                }
+                hostStarts.release(host);
+            }
+        }
+
+        return null;
     }
 
     @Override
     public boolean canProvision(Label label) {
+        if (!circuitBreaker.allowsCalls()) {
+            LOGGER.debug("Not provisioning in cloud '{}' for {} s, its docker hosts fail or are slow",
+                    getDisplayName(), TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.getRemainingOpenMillis()));
+            return false;
+        }
         return getTemplate(label) != null;
     }
 
+    /**
+     * Opens when many docker calls of this cloud fail with transport errors or take more than half
+     * the read timeout, see {@link DockerHost#recordCall}.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     @CheckForNull
     public DockerTemplate getTemplate(String template) {
         for (DockerTemplate t : templates) {
@@ -436,68 +1175,142 @@ public class DockerCloud extends Cloud {
     }
 
     /**
-     * Counts the number of instances in Docker currently running that are using the specified image.
+     * Counts the slave containers of this cloud currently running that are using the specified image.
+     * Answered from {@link DockerContainerInventory}, which only lists containers when out of sync.
      *
      * @param imageName If null, then all instances are counted.
      *            <p/>
-     *            This includes those instances that may be started outside Hudson.
+     *            Containers started outside this cloud are not counted.
      */
     public int countCurrentDockerSlaves(final String imageName) throws Exception {
-        int count = 0;
-        List<Container> containers = getClient().listContainersCmd().exec();
+        return countSlaves(imageName);
+    }
 
-        if (imageName == null) {
-            count = containers.size();
-        } else {
-            for (Container container : containers) {
-                String containerImage = container.getImage();
-                if (containerImage.equals(imageName)) {
-                    count++;
-                }
+    /**
+     * Sum of slave containers over available hosts, a host that can't be asked is marked failed and not counted.
+     */
+    private int countSlaves(@Nullable String imageName) {
+        int count = 0;
+        for (DockerHost host : getHosts()) {
+            if (!host.isAvailable()) {
+                continue;
+            }
+            final Integer hostCount = host.countSlaves(imageName);
+            if (hostCount != null) {
+                count += hostCount;
             }
         }
-
         return count;
     }
 
+    /**
+     * Running slave containers of the template's image plus containers of that image being provisioned.
+     * Templates sharing an image share the load.
+     */
+    int countTemplateLoad(DockerTemplate t) {
+        final String image = t.getDockerTemplateBase().getImage();
+        return countSlaves(image) + provisioning.get(image);
+    }
+
+    /**
+     * @return next {@link DockerTemplateSelection#ROUND_ROBIN} index below size
+     */
+    int nextTemplateIndex(int size) {
+        return (templateCursor.getAndIncrement() & Integer.MAX_VALUE) % size;
+    }
+
     /**
      * Check not too many already running.
      */
-    private synchronized boolean addProvisionedSlave(DockerTemplate t) throws Exception {
+    private boolean addProvisionedSlave(DockerTemplate t) throws Exception {
+        // a pooled container will be handed out instead of starting a new one
+        return addProvisionedSlave(t, getWarmPool().size(t));
+    }
+
+    /**
+     * @param pooled running containers of the template that are not counted against caps
+     */
+    boolean addProvisionedSlave(DockerTemplate t, int pooled) throws Exception {
         String ami = t.getDockerTemplateBase().getImage();
         int amiCap = t.instanceCap;
 
-        int estimatedTotalSlaves = countCurrentDockerSlaves(null);
-        int estimatedAmiSlaves = countCurrentDockerSlaves(ami);
-
-        synchronized (provisionedImages) {
-            int currentProvisioning = 0;
-            if (provisionedImages.containsKey(ami)) {
-                currentProvisioning = provisionedImages.get(ami);
+        int availableHosts = 0;
+        for (DockerHost host : getHosts()) {
+            if (host.isAvailable()) {
+                availableHosts++;
             }
+        }
+        if (availableHosts == 0) {
+            LOGGER.info("Not Provisioning '{}'; no docker host of '{}' is available", ami, name);
+            return false;
+        }
 
-            for (int amiCount : provisionedImages.values()) {
-                estimatedTotalSlaves += amiCount;
-            }
+        int totalCap = getContainerCap();
+        if (hostContainerCap > 0) {
+            totalCap = (int) Math.min(totalCap, (long) hostContainerCap * availableHosts);
+        }
 
-            estimatedAmiSlaves += currentProvisioning;
+        int estimatedTotalSlaves = countCurrentDockerSlaves(null) - pooled;
+        int estimatedAmiSlaves = countCurrentDockerSlaves(ami) - pooled;
 
-            if (estimatedTotalSlaves >= getContainerCap()) {
-                LOGGER.info("Not Provisioning '{}'; Server '{}' full with '{}' container(s)", ami, getContainerCap(), name);
-                return false;      // maxed out
-            }
+        if (!provisioning.tryReserve(ami, estimatedTotalSlaves, totalCap, estimatedAmiSlaves, amiCap)) {
+            LOGGER.info("Not Provisioning '{}'; Server '{}' full or instance limit of '{}' reached with '{}' container(s)",
+                    ami, name, amiCap, estimatedTotalSlaves + provisioning.get());
+            return false;      // maxed out
+        }
+
+        final ContainerResources amount = resourcesOf(t);
+        if (!amount.isNone() && !reserveResources(amount, amount.times(pooled))) {
+            provisioning.release(ami);
+            LOGGER.info("Not Provisioning '{}'; no docker host of '{}' has {} left", ami, name, amount);
+            return false;
+        }
+
+        LOGGER.info("Provisioning '{}' number '{}' on '{}'; Total containers: '{}'",
+                ami, estimatedAmiSlaves + provisioning.get(ami), name, estimatedTotalSlaves + provisioning.get());
+        return true;
+    }
 
-            if (amiCap != 0 && estimatedAmiSlaves >= amiCap) {
-                LOGGER.info("Not Provisioning '{}'. Instance limit of '{}' reached on server '{}'", ami, amiCap, name);
-                return false;      // maxed out
+    /**
+     * Memory limit and cpu shares a container of the template reserves.
+     */
+    private static ContainerResources resourcesOf(DockerTemplate t) {
+        final DockerTemplateBase base = t.getDockerTemplateBase();
+        return ContainerResources.of(base.getMemoryLimit(), base.getCpuShares());
+    }
+
+    /**
+     * Admits resources for a planned container if at least one available host could take it and
+     * all planned containers fit into the hosts' capacity together.
+     *
+     * @param pooled resources of pooled containers that will be handed out instead of started
+     */
+    private boolean reserveResources(ContainerResources amount, ContainerResources pooled) {
+        ContainerResources used = ContainerResources.NONE;
+        ContainerResources capacity = ContainerResources.NONE;
+        boolean fitsAnyHost = false;
+
+        for (DockerHost host : getHosts()) {
+            if (!host.isAvailable()) {
+                continue;
             }
 
-            LOGGER.info("Provisioning '{}' number '{}' on '{}'; Total containers: '{}'",
-                    ami, estimatedAmiSlaves, name, estimatedTotalSlaves);
+            final ContainerResources hostUsed;
+            final ContainerResources hostCapacity;
+            try {
+                hostUsed = host.getUsedResources();
+                hostCapacity = host.getCapacity();
+            } catch (RuntimeException ex) {
+                host.recordFailure(ex);
+                continue;
+            }
 
-            provisionedImages.put(ami, currentProvisioning + 1);
-            return true;
+            fitsAnyHost |= hostUsed.plus(amount).fitsIn(hostCapacity);
+            used = used.plus(hostUsed);
+            capacity = capacity.plus(hostCapacity);
         }
+
+        return fitsAnyHost && plannedResources.tryReserve(used.minus(pooled), capacity, amount);
     }
 
     public static DockerCloud getCloudByName(String name) {
@@ -510,6 +1323,8 @@ public class DockerCloud extends Cloud {
             template.readResolve();
         }
 
+        initTransients();
+
         return this;
     }
 
@@ -518,6 +1333,7 @@ public class DockerCloud extends Cloud {
         return MoreObjects.toStringHelper(this)
                 .add("name", name)
                 .add("serverUrl", serverUrl)
+                .add("hostUrls", hostUrls)
                 .toString();
     }
 
@@ -529,14 +1345,22 @@ public class DockerCloud extends Cloud {
         DockerCloud that = (DockerCloud) o;
 
         if (containerCap != that.containerCap) return false;
+        if (getTemplateSelection() != that.getTemplateSelection()) return false;
         if (connectTimeout != that.connectTimeout) return false;
         if (readTimeout != that.readTimeout) return false;
         if (templates != null ? !templates.equals(that.templates) : that.templates != null) return false;
         if (serverUrl != null ? !serverUrl.equals(that.serverUrl) : that.serverUrl != null) return false;
+        if (hostUrls != null ? !hostUrls.equals(that.hostUrls) : that.hostUrls != null) return false;
+        if (hostContainerCap != that.hostContainerCap) return false;
+        if (hostMemoryMB != that.hostMemoryMB) return false;
+        if (hostCpuShares != that.hostCpuShares) return false;
+        if (getMaxParallelStarts() != that.getMaxParallelStarts()) return false;
+        if (getMaxConnections() != that.getMaxConnections()) return false;
+        if (getMaxConcurrentCalls() != that.getMaxConcurrentCalls()) return false;
+        if (getStopTimeout() != that.getStopTimeout()) return false;
+        if (getMaxParallelTeardowns() != that.getMaxParallelTeardowns()) return false;
         if (version != null ? !version.equals(that.version) : that.version != null) return false;
-        if (credentialsId != null ? !credentialsId.equals(that.credentialsId) : that.credentialsId != null)
-            return false;
-        return !(connection != null ? !connection.equals(that.connection) : that.connection != null);
+        return !(credentialsId != null ? !credentialsId.equals(that.credentialsId) : that.credentialsId != null);
 
     }
 
@@ -552,11 +1376,10 @@ public class DockerCloud extends Cloud {
                 @QueryParameter String credentialsId,
                 @QueryParameter String version
         ) throws IOException, ServletException, DockerException {
-            try {
-                DockerClient dc = dockerClientConfig()
-                        .forServer(serverUrl, version)
-                        .withCredentials(credentialsId)
-                        .buildClient();
+            try (DockerClient dc = dockerClientConfig()
+                    .forServer(serverUrl, version)
+                    .withCredentials(credentialsId)
+                    .buildClient()) {
 
                 Version verResult = dc.versionCmd().exec();
 
@@ -1,18 +1,18 @@
 package com.nirima.jenkins.plugins.docker;
 
-import com.nirima.jenkins.plugins.docker.utils.Cacheable;
 import hudson.model.Executor;
 import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.slaves.AbstractCloudComputer;
 import shaded.com.google.common.base.MoreObjects;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.SettableFuture;
 
-import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Represents remote (running) container
+ * Represents remote (running) container, taken offline by {@link DockerNodeLiveness} once it is gone.
  *
  * @author magnayn
  */
@@ -21,10 +21,6 @@ public class DockerComputer extends AbstractCloudComputer<DockerSlave> {
 
     private int checked = 0;
 
-    // Jenkins calls isUpdatingTasks a lot, and it's expensive to keep
-    // asking the container if it exists or not, so we cache it here.
-    private final Cacheable<Boolean> nodeExistenceStatus;
-
     /**
      * remember associated container id
      */
@@ -32,15 +28,12 @@ public class DockerComputer extends AbstractCloudComputer<DockerSlave> {
 
     private String cloudId;
 
+    private final SettableFuture<Void> online = SettableFuture.create();
+
     public DockerComputer(DockerSlave dockerSlave) {
         super(dockerSlave);
         setContainerId(dockerSlave.getContainerId());
         setCloudId(dockerSlave.getCloudId());
-        nodeExistenceStatus = new Cacheable<>(60000, new Callable<Boolean>() {
-            public Boolean call() throws Exception {
-                return getNode().containerExistsInCloud();
-            }
-        });
     }
 
     public DockerCloud getCloud() {
@@ -86,6 +79,14 @@ public class DockerComputer extends AbstractCloudComputer<DockerSlave> {
         if (node != null) {
             node.onConnected();
         }
+        online.set(null);
+    }
+
+    /**
+     * @return future done once the computer came online the first time, see {@link DockerComputerListener}
+     */
+    public ListenableFuture<Void> whenOnline() {
+        return online;
     }
 
     public String getContainerId() {
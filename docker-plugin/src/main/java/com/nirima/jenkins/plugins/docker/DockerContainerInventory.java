@@ -0,0 +1,462 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.NotFoundException;
+import com.github.dockerjava.api.command.ListContainersCmd;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerConfig;
+import com.github.dockerjava.api.model.Event;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import com.nirima.jenkins.plugins.docker.utils.ContainerResources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory view of the containers on one {@link DockerHost}.
+ * <p/>
+ * Kept current from the {@link DockerEventStream} and resynced with a full container
+ * list when the stream was lost or {@link #RESYNC_INTERVAL_MILLIS} passed, so cap checks
+ * don't need a {@code listContainersCmd} round trip each.
+ * <p/>
+ * Containers of the host's cloud, found by their {@link DockerContainerLabels} or recorded when started,
+ * are counted apart from the rest by their normalised template image, so caps ignore containers
+ * started otherwise on a shared host and don't depend on how the image was referenced.
+ */
+public class DockerContainerInventory implements DockerEventStream.Listener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerContainerInventory.class);
+
+    public static final long RESYNC_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Event status when the HEALTHCHECK of a container passes.
+     */
+    public static final String HEALTHY = "health_status: healthy";
+
+    private static final String UNHEALTHY = "health_status: unhealthy";
+
+    private static final class Entry {
+        /**
+         * {@link DockerImageIndex#fullImageName} of the template image for slave containers, else as reported.
+         */
+        volatile String image;
+        volatile boolean running;
+
+        /**
+         * Slave container of this host's cloud.
+         */
+        volatile boolean slave;
+
+        /**
+         * Health check passed last time, only known from events.
+         */
+        volatile boolean healthy;
+
+        /**
+         * Memory and cpu shares the container was created with, null until known.
+         */
+        volatile ContainerResources resources;
+
+        Entry(String image, boolean running) {
+            this.image = image;
+            this.running = running;
+        }
+    }
+
+    private final DockerHost host;
+
+    private final DockerEventStream eventStream;
+
+    // mutated under "this", read lock free
+    private volatile ConcurrentHashMap<String, Entry> containers = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, AtomicInteger> slavesByImage = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger slaves = new AtomicInteger();
+
+    /**
+     * A background pass of {@link #learnResources()} is running.
+     */
+    private final AtomicBoolean learning = new AtomicBoolean();
+
+    /**
+     * 0 when never synced or stale.
+     */
+    private volatile long lastSync;
+
+    public DockerContainerInventory(DockerHost host, DockerEventStream eventStream) {
+        this.host = host;
+        this.eventStream = eventStream;
+        eventStream.addListener(this);
+    }
+
+    /**
+     * @return number of running containers, including those started outside Jenkins.
+     */
+    public int countRunning() {
+        refreshIfStale();
+        return running.get();
+    }
+
+    /**
+     * @param imageName if null, slave containers of all images are counted.
+     * @return number of running slave containers of the host's cloud.
+     */
+    public int countSlaves(@Nullable String imageName) {
+        refreshIfStale();
+
+        if (imageName == null) {
+            return slaves.get();
+        }
+
+        AtomicInteger count = slavesByImage.get(DockerImageIndex.fullImageName(imageName));
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return true if the container exists on the host, running or not.
+     */
+    public boolean contains(String containerId) {
+        refreshIfStale();
+        return containers.containsKey(containerId);
+    }
+
+    /**
+     * @return true if the container exists on the host and is running.
+     */
+    public boolean isRunning(String containerId) {
+        refreshIfStale();
+        Entry entry = containers.get(containerId);
+        return entry != null && entry.running;
+    }
+
+    /**
+     * @return true if the container is running and its last health event since the plugin listens was healthy.
+     */
+    public boolean isHealthy(String containerId) {
+        refreshIfStale();
+        Entry entry = containers.get(containerId);
+        return entry != null && entry.running && entry.healthy;
+    }
+
+    /**
+     * Sums resources of running containers. Containers not started through {@link #recordStarted}
+     * are inspected in the background to learn theirs, and count as reserving nothing until then.
+     *
+     * @return memory and cpu shares reserved by running containers
+     */
+    public ContainerResources getReservedResources() {
+        refreshIfStale();
+
+        ContainerResources reserved = ContainerResources.NONE;
+        boolean unknown = false;
+        for (Entry entry : containers.values()) {
+            if (!entry.running) {
+                continue;
+            }
+            if (entry.resources == null) {
+                unknown = true;
+                continue;
+            }
+            reserved = reserved.plus(entry.resources);
+        }
+
+        if (unknown) {
+            learnResources();
+        }
+        return reserved;
+    }
+
+    /**
+     * Inspects running containers of unknown resources one after another on the threads of the cloud,
+     * one pass per host at a time, so a shared host with many containers doesn't hold up provisioning.
+     */
+    private void learnResources() {
+        if (!learning.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            host.getCloud().getAsyncClient().submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        for (Map.Entry<String, Entry> e : containers.entrySet()) {
+                            final Entry entry = e.getValue();
+                            if (entry.running && entry.resources == null) {
+                                entry.resources = inspectResources(e.getKey());
+                            }
+                        }
+                    } catch (RuntimeException ex) {
+                        LOGGER.debug("Stopped learning resources of containers on '{}': {}",
+                                host.getDisplayName(), ex.getMessage());
+                    } finally {
+                        learning.set(false);
+                    }
+                    return null;
+                }
+            });
+        } catch (RuntimeException ex) {
+            learning.set(false);
+            throw ex;
+        }
+    }
+
+    private ContainerResources inspectResources(String containerId) {
+        final long started = System.currentTimeMillis();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            ContainerConfig config = lease.getClient().inspectContainerCmd(containerId).exec().getConfig();
+            host.recordCall(started, null);
+            return new ContainerResources(config.getMemoryLimit(), config.getCpuShares());
+        } catch (NotFoundException ex) {
+            host.recordCall(started, null);
+            return ContainerResources.NONE;
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Record a slave container started by this plugin without waiting for its event to arrive.
+     *
+     * @param imageName image of the template
+     * @param resources memory and cpu shares the container was created with, null if not known
+     */
+    public synchronized void recordStarted(String containerId, String imageName,
+                                           @Nullable ContainerResources resources) {
+        started(containerId, imageName);
+        // its start event may have come first
+        markSlave(containerId, imageName);
+        if (resources != null) {
+            containers.get(containerId).resources = resources;
+        }
+    }
+
+    /**
+     * Record a container removed by this plugin without waiting for its event to arrive.
+     */
+    public synchronized void recordRemoved(String containerId) {
+        destroyed(containerId);
+    }
+
+    /**
+     * Drops state so the next access lists containers again.
+     */
+    public void invalidate() {
+        lastSync = 0;
+    }
+
+    private void refreshIfStale() {
+        if (isFresh()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (isFresh()) {
+                return;
+            }
+
+            // subscribe before listing so nothing happens unseen in between
+            eventStream.ensureConnected();
+            resync();
+        }
+    }
+
+    private boolean isFresh() {
+        return lastSync != 0
+                && eventStream.isConnected()
+                && System.currentTimeMillis() - lastSync < RESYNC_INTERVAL_MILLIS;
+    }
+
+    private void resync() {
+        final List<Container> list = list(null);
+        // slave containers by the labels they were created with, images as the templates name them
+        final Map<String, String> slaveImages = new HashMap<>();
+        for (Container container : list(DockerContainerLabels.of(host.getCloud()))) {
+            final Map<String, String> labels = container.getLabels();
+            final String image = labels == null ? null : labels.get(DockerContainerLabels.TEMPLATE_IMAGE);
+            slaveImages.put(container.getId(), image == null ? container.getImage() : image);
+        }
+
+        ConcurrentHashMap<String, Entry> newContainers = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, AtomicInteger> newSlavesByImage = new ConcurrentHashMap<>();
+        int newRunning = 0;
+        int newSlaves = 0;
+
+        for (Container container : list) {
+            boolean isRunning = container.getStatus() != null && container.getStatus().startsWith("Up");
+            Entry entry = new Entry(container.getImage(), isRunning);
+            final String slaveImage = slaveImages.get(container.getId());
+            if (slaveImage != null) {
+                entry.slave = true;
+                entry.image = DockerImageIndex.fullImageName(slaveImage);
+            }
+            Entry known = containers.get(container.getId());
+            if (known != null) {
+                entry.resources = known.resources;
+                entry.healthy = known.healthy;
+            }
+            newContainers.put(container.getId(), entry);
+            if (isRunning) {
+                newRunning++;
+                if (entry.slave) {
+                    newSlaves++;
+                    increment(newSlavesByImage, entry.image);
+                }
+            }
+        }
+
+        containers = newContainers;
+        slavesByImage = newSlavesByImage;
+        running.set(newRunning);
+        slaves.set(newSlaves);
+        lastSync = System.currentTimeMillis();
+
+        LOGGER.debug("Resynced inventory of '{}': {} container(s), {} running, {} slave(s)",
+                host.getDisplayName(), newContainers.size(), newRunning, newSlaves);
+    }
+
+    /**
+     * @param labels if not null, only containers with these labels are listed, filtered by docker
+     */
+    private List<Container> list(@Nullable Map<String, String> labels) {
+        final long started = System.currentTimeMillis();
+        final List<Container> list;
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            ListContainersCmd cmd = lease.getClient().listContainersCmd().withShowAll(true);
+            if (labels != null) {
+                cmd.withLabelFilter(labels);
+            }
+            list = cmd.exec();
+        } catch (RuntimeException ex) {
+            host.recordCall(started, ex);
+            throw ex;
+        }
+        host.recordCall(started, null);
+        return list;
+    }
+
+    @Override
+    public synchronized void onEvent(Event event) {
+        final String status = event.getStatus();
+        final String id = event.getId();
+        if (status == null || id == null) {
+            return;
+        }
+
+        switch (status) {
+            case "create":
+                if (!containers.containsKey(id)) {
+                    containers.put(id, new Entry(event.getFrom(), false));
+                }
+                break;
+            case "start":
+                started(id, event.getFrom());
+                break;
+            case "die":
+                died(id);
+                break;
+            case "destroy":
+                destroyed(id);
+                break;
+            case HEALTHY:
+            case UNHEALTHY:
+                Entry entry = containers.get(id);
+                if (entry != null) {
+                    entry.healthy = HEALTHY.equals(status);
+                }
+                break;
+            default:
+                // image events and the rest don't change counts
+        }
+    }
+
+    @Override
+    public void onStreamLost() {
+        invalidate();
+    }
+
+    private void started(String id, String imageName) {
+        Entry entry = containers.get(id);
+        if (entry == null) {
+            entry = new Entry(imageName, false);
+            containers.put(id, entry);
+        }
+
+        if (!entry.running) {
+            entry.running = true;
+            running.incrementAndGet();
+            if (entry.slave) {
+                slaves.incrementAndGet();
+                increment(slavesByImage, entry.image);
+            }
+        }
+    }
+
+    private void markSlave(String id, String imageName) {
+        Entry entry = containers.get(id);
+        if (entry == null || entry.slave) {
+            return;
+        }
+
+        entry.image = DockerImageIndex.fullImageName(imageName);
+        entry.slave = true;
+        if (entry.running) {
+            slaves.incrementAndGet();
+            increment(slavesByImage, entry.image);
+        }
+    }
+
+    private void died(String id) {
+        Entry entry = containers.get(id);
+        if (entry != null && entry.running) {
+            entry.running = false;
+            entry.healthy = false;
+            running.decrementAndGet();
+            if (entry.slave) {
+                slaves.decrementAndGet();
+                decrement(slavesByImage, entry.image);
+            }
+        }
+    }
+
+    private void destroyed(String id) {
+        died(id);
+        containers.remove(id);
+    }
+
+    private static void increment(ConcurrentHashMap<String, AtomicInteger> counts, @Nullable String imageName) {
+        if (imageName == null) {
+            return;
+        }
+
+        AtomicInteger count = counts.get(imageName);
+        if (count == null) {
+            AtomicInteger created = new AtomicInteger();
+            count = counts.putIfAbsent(imageName, created);
+            if (count == null) {
+                count = created;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    private static void decrement(ConcurrentHashMap<String, AtomicInteger> counts, @Nullable String imageName) {
+        if (imageName == null) {
+            return;
+        }
+
+        AtomicInteger count = counts.get(imageName);
+        if (count != null && count.decrementAndGet() <= 0) {
+            counts.remove(imageName, count);
+        }
+    }
+}
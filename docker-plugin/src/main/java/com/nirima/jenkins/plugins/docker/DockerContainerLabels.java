@@ -0,0 +1,87 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Labels put on containers started for slaves, to tell them apart from containers started
+ * otherwise and to find them again after a restart.
+ * <p/>
+ * The node of a container usually is not labelled, its name follows from the cloud and the container id,
+ * see {@link #nodeName(String, String)}. Launchers that pass the node to the container when it is created
+ * choose the name up front with {@link #newNodeName(String)} and label it as {@link #NODE}.
+ */
+public final class DockerContainerLabels {
+
+    private static final String PREFIX = "com.nirima.jenkins.plugins.docker.";
+
+    /**
+     * {@link Jenkins#getLegacyInstanceId()} of the Jenkins that started the container.
+     */
+    public static final String JENKINS_INSTANCE = PREFIX + "JenkinsInstance";
+
+    /**
+     * Name of the {@link DockerCloud} that started the container.
+     */
+    public static final String CLOUD = PREFIX + "Cloud";
+
+    /**
+     * Image of the template, as configured.
+     */
+    public static final String TEMPLATE_IMAGE = PREFIX + "TemplateImage";
+
+    /**
+     * Name of the slave node, if chosen before the container was created.
+     */
+    public static final String NODE = PREFIX + "NodeName";
+
+    private DockerContainerLabels() {
+    }
+
+    /**
+     * @return labels of all slave containers of the cloud, i.e. as filter for listings
+     */
+    public static Map<String, String> of(DockerCloud cloud) {
+        final Map<String, String> labels = new HashMap<>();
+        labels.put(JENKINS_INSTANCE, Jenkins.getInstance().getLegacyInstanceId());
+        labels.put(CLOUD, cloud.getDisplayName());
+        return labels;
+    }
+
+    /**
+     * @return labels for a slave container of the template
+     */
+    public static Map<String, String> of(DockerCloud cloud, DockerTemplate template) {
+        final Map<String, String> labels = of(cloud);
+        labels.put(TEMPLATE_IMAGE, template.getDockerTemplateBase().getImage());
+        return labels;
+    }
+
+    /**
+     * @return name of the slave node of a container
+     */
+    public static String nodeName(String cloudName, String containerId) {
+        return cloudName + "-" + containerId.substring(0, 12);
+    }
+
+    /**
+     * @return name for the slave node of a container that doesn't exist yet, as long as {@link #nodeName}
+     */
+    public static String newNodeName(String cloudName) {
+        return cloudName + "-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+
+    /**
+     * @return node name the container was labelled with, null if it follows from the container id
+     */
+    @CheckForNull
+    public static String nodeNameOf(InspectContainerResponse containerInspect) {
+        final Map<String, String> labels = containerInspect.getConfig().getLabels();
+        return labels == null ? null : labels.get(NODE);
+    }
+}
@@ -0,0 +1,163 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.command.EventCallback;
+import com.github.dockerjava.api.command.EventsCmd;
+import com.github.dockerjava.api.model.Event;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import hudson.slaves.Cloud;
+import jenkins.model.Jenkins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Subscription to the docker {@code /events} endpoint of one {@link DockerHost}.
+ * <p/>
+ * Events are fanned out to registered {@link Listener}s. When the stream breaks
+ * listeners are told so they can resync, and the next {@link #ensureConnected()}
+ * re-opens it from the time of the last seen event.
+ */
+public class DockerEventStream implements EventCallback {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerEventStream.class);
+
+    public interface Listener {
+        void onEvent(Event event);
+
+        /**
+         * Events may have been missed, any state built from them is stale.
+         */
+        void onStreamLost();
+    }
+
+    private final DockerHost host;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private ExecutorService executor; // guarded by this
+
+    /**
+     * Keeps the client of the stream open until it is reopened or closed, even if the host replaces its client.
+     */
+    private DockerClientRegistry.Lease lease; // guarded by this
+
+    private volatile boolean connected;
+
+    private volatile boolean closed;
+
+    /**
+     * Unix time (seconds) of the last received event, used as "since" on reconnect.
+     */
+    private volatile long lastEventTime;
+
+    public DockerEventStream(DockerHost host) {
+        this.host = host;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Opens the event stream unless it is already open.
+     */
+    public synchronized void ensureConnected() {
+        if (connected || closed) {
+            return;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        releaseLease();
+
+        lease = host.leaseClient();
+        EventsCmd eventsCmd = lease.getClient().eventsCmd(this);
+        if (lastEventTime > 0) {
+            eventsCmd.withSince(String.valueOf(lastEventTime));
+        }
+
+        executor = eventsCmd.exec();
+        connected = true;
+        LOGGER.debug("Subscribed to events of '{}'", host.getDisplayName());
+    }
+
+    public synchronized void close() {
+        closed = true;
+        connected = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        releaseLease();
+    }
+
+    private synchronized void releaseLease() {
+        if (lease != null) {
+            lease.close();
+            lease = null;
+        }
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        if (event.getTime() > lastEventTime) {
+            lastEventTime = event.getTime();
+        }
+
+        for (Listener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Listener failed on event '{}' of '{}'", event, host.getDisplayName(), ex);
+            }
+        }
+    }
+
+    @Override
+    public void onException(Throwable throwable) {
+        LOGGER.warn("Event stream of '{}' failed: {}", host.getDisplayName(), throwable.getMessage());
+        lost();
+    }
+
+    @Override
+    public void onCompletion(int numEvents) {
+        LOGGER.debug("Event stream of '{}' completed after {} event(s)", host.getDisplayName(), numEvents);
+        lost();
+    }
+
+    /**
+     * Stop receiving once closed or when the cloud was removed or replaced by a reconfiguration.
+     */
+    @Override
+    public boolean isReceiving() {
+        if (closed) {
+            return false;
+        }
+
+        final Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins != null) {
+            Cloud current = jenkins.getCloud(host.getCloud().name);
+            return current == host.getCloud();
+        }
+
+        return true;
+    }
+
+    private void lost() {
+        connected = false;
+        for (Listener listener : listeners) {
+            listener.onStreamLost();
+        }
+    }
+}
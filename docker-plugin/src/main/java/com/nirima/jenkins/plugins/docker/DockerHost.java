@@ -0,0 +1,346 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Info;
+import com.nirima.jenkins.plugins.docker.client.AsyncDockerClient;
+import com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import com.nirima.jenkins.plugins.docker.utils.ContainerResources;
+import com.nirima.jenkins.plugins.docker.utils.ResourceCounter;
+import com.nirima.jenkins.plugins.docker.utils.SingleFlight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.ws.rs.ProcessingException;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin.dockerClientConfig;
+
+/**
+ * One docker daemon of a {@link DockerCloud}, with the state kept per daemon:
+ * client, event stream, container inventory, image index and image pulls.
+ * <p/>
+ * A host that failed a call is skipped for {@link #RETRY_MILLIS}, after which the
+ * next call through it decides whether it is back.
+ */
+public class DockerHost {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerHost.class);
+
+    public static final long RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final DockerCloud cloud;
+
+    private final String serverUrl;
+
+    /**
+     * Lease of this host on its shared client, null until the client is needed.
+     */
+    private volatile DockerClientRegistry.Lease clientLease;
+
+    private final DockerEventStream eventStream;
+
+    private final DockerContainerInventory containerInventory;
+
+    private final DockerImageIndex imageIndex;
+
+    private final DockerSlaveJarCache slaveJarCache;
+
+    /**
+     * Pulls of the same image share one request to the daemon.
+     */
+    private final SingleFlight<String, Void> imagePulls = new SingleFlight<>();
+
+    /**
+     * Resources of containers being started, but not necessarily reported yet by docker.
+     */
+    private final ResourceCounter startingResources = new ResourceCounter();
+
+    /**
+     * Memory and cpus reported by the daemon, null until asked.
+     */
+    private volatile ContainerResources reportedCapacity;
+
+    /**
+     * 0 when the last call succeeded.
+     */
+    private volatile long failedAt;
+
+    public DockerHost(DockerCloud cloud, String serverUrl) {
+        this.cloud = cloud;
+        this.serverUrl = serverUrl;
+        this.eventStream = new DockerEventStream(this);
+        this.containerInventory = new DockerContainerInventory(this, eventStream);
+        this.imageIndex = new DockerImageIndex(this, eventStream);
+        this.slaveJarCache = new DockerSlaveJarCache(this, eventStream);
+        new DockerNodeLiveness(this, eventStream);
+    }
+
+    public DockerCloud getCloud() {
+        return cloud;
+    }
+
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    /**
+     * Name or address of the daemon's machine, where ports of containers are published.
+     */
+    public String getHostname() {
+        if (ClientConfigBuilderForPlugin.isUnixSocket(serverUrl)) {
+            return "localhost";
+        }
+        return URI.create(serverUrl).getHost();
+    }
+
+    /**
+     * "cloud (url)", for messages.
+     */
+    public String getDisplayName() {
+        return cloud.getDisplayName() + " (" + serverUrl + ")";
+    }
+
+    /**
+     * Client for a call or two, see {@link #leaseClient()} for longer use.
+     */
+    public DockerClient getClient() {
+        return ownLease().getClient();
+    }
+
+    /**
+     * Lease on the client of this host, which keeps it open even if {@link #resetClient()} replaces it
+     * meanwhile, for calls that take longer, i.e. pulls, or should not fail because of a reset.
+     *
+     * @return lease to close when done
+     */
+    public DockerClientRegistry.Lease leaseClient() {
+        while (true) {
+            final DockerClientRegistry.Lease own = ownLease();
+            final DockerClientRegistry.Lease shared = own.share();
+            if (shared != null) {
+                return shared;
+            }
+            // closed since, i.e. the registry dropped the host on a reconfiguration
+            synchronized (this) {
+                if (clientLease == own) {
+                    clientLease = null;
+                }
+            }
+        }
+    }
+
+    private DockerClientRegistry.Lease ownLease() {
+        DockerClientRegistry.Lease result = clientLease;
+        if (result == null) {
+            synchronized (this) {
+                result = clientLease;
+                if (result == null) {
+                    final ClientConfigBuilderForPlugin builder = dockerClientConfig().forCloud(cloud, serverUrl);
+                    clientLease = result = DockerClientRegistry.getInstance().acquire(builder.getKey(),
+                            builder.getCredentialsId(), builder.build());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Makes the next {@link #getClient()} get a client from the registry again, i.e. after credentials changed.
+     * The current client closes once the leases of calls still using it are closed.
+     */
+    public synchronized void resetClient() {
+        if (clientLease != null) {
+            clientLease.close();
+            clientLease = null;
+        }
+    }
+
+    /**
+     * Runs a call with the client of this host on the threads of the cloud, see {@link DockerCloud#getAsyncClient()}.
+     */
+    public <T> ListenableFuture<T> submit(final AsyncDockerClient.Call<T> call) {
+        return cloud.getAsyncClient().submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                final long started = System.currentTimeMillis();
+                try (DockerClientRegistry.Lease lease = leaseClient()) {
+                    final T result = call.call(lease.getClient());
+                    recordCall(started, null);
+                    return result;
+                } catch (Exception ex) {
+                    recordCall(started, ex);
+                    throw ex;
+                }
+            }
+        });
+    }
+
+    /**
+     * Feeds the outcome and latency of a call to this host to the cloud's {@link DockerCloud#getCircuitBreaker()}.
+     * Only transport failures and timeouts count as failed, docker errors such as a missing container don't.
+     *
+     * @param startedAt when the call was made
+     * @param failure   what the call threw, if anything
+     */
+    void recordCall(long startedAt, @CheckForNull Throwable failure) {
+        cloud.getCircuitBreaker().record(failure instanceof ProcessingException,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * {@link DockerClientRegistry} key of the client of this host.
+     */
+    public String getClientKey() {
+        return ClientConfigBuilderForPlugin.keyOf(cloud, serverUrl);
+    }
+
+    public DockerEventStream getEventStream() {
+        return eventStream;
+    }
+
+    public DockerContainerInventory getContainerInventory() {
+        return containerInventory;
+    }
+
+    public DockerImageIndex getImageIndex() {
+        return imageIndex;
+    }
+
+    public DockerSlaveJarCache getSlaveJarCache() {
+        return slaveJarCache;
+    }
+
+    SingleFlight<String, Void> getImagePulls() {
+        return imagePulls;
+    }
+
+    /**
+     * Memory and cpu shares containers may reserve on this host, from the cloud settings,
+     * else from the daemon's {@code info}.
+     */
+    public ContainerResources getCapacity() {
+        final int memoryMB = cloud.getHostMemoryMB();
+        final int cpuShares = cloud.getHostCpuShares();
+        if (memoryMB > 0 && cpuShares > 0) {
+            return ContainerResources.of(memoryMB, cpuShares);
+        }
+
+        ContainerResources reported = reportedCapacity;
+        if (reported == null) {
+            final long started = System.currentTimeMillis();
+            final Info info;
+            try (DockerClientRegistry.Lease lease = leaseClient()) {
+                info = lease.getClient().infoCmd().exec();
+            } catch (RuntimeException ex) {
+                recordCall(started, ex);
+                throw ex;
+            }
+            recordCall(started, null);
+            reportedCapacity = reported = new ContainerResources(info.getMemTotal(),
+                    info.getNCPU() * ContainerResources.SHARES_PER_CPU);
+            LOGGER.debug("Docker host '{}' reports {}", getDisplayName(), reported);
+        }
+
+        return new ContainerResources(
+                memoryMB > 0 ? (long) memoryMB * 1024 * 1024 : reported.getMemoryBytes(),
+                cpuShares > 0 ? cpuShares : reported.getCpuShares());
+    }
+
+    /**
+     * @return resources reserved by running and starting containers
+     */
+    public ContainerResources getUsedResources() {
+        return containerInventory.getReservedResources().plus(startingResources.get());
+    }
+
+    /**
+     * Reserves resources for a container about to be started here.
+     *
+     * @return false if they don't fit or the host can't be asked, else {@link #releaseResources} must follow
+     */
+    boolean tryReserveResources(ContainerResources amount) {
+        if (amount.isNone()) {
+            return true;
+        }
+
+        try {
+            return startingResources.tryReserve(containerInventory.getReservedResources(), getCapacity(), amount);
+        } catch (RuntimeException ex) {
+            recordFailure(ex);
+            return false;
+        }
+    }
+
+    void releaseResources(ContainerResources amount) {
+        if (!amount.isNone()) {
+            startingResources.release(amount);
+        }
+    }
+
+    /**
+     * @return false while a recent call failed
+     */
+    public boolean isAvailable() {
+        final long failed = failedAt;
+        return failed == 0 || System.currentTimeMillis() - failed > RETRY_MILLIS;
+    }
+
+    public void recordFailure(Throwable cause) {
+        if (failedAt == 0) {
+            LOGGER.warn("Docker host '{}' failed, skipping it for {} s: {}",
+                    getDisplayName(), TimeUnit.MILLISECONDS.toSeconds(RETRY_MILLIS), cause.getMessage());
+        }
+        failedAt = System.currentTimeMillis();
+        containerInventory.invalidate();
+        reportedCapacity = null;
+    }
+
+    public void recordSuccess() {
+        if (failedAt != 0) {
+            LOGGER.info("Docker host '{}' is back", getDisplayName());
+            failedAt = 0;
+        }
+    }
+
+    /**
+     * Running containers, or null (and the host marked failed) when they can't be listed.
+     */
+    @CheckForNull
+    Integer countRunning() {
+        try {
+            int count = containerInventory.countRunning();
+            recordSuccess();
+            return count;
+        } catch (RuntimeException ex) {
+            recordFailure(ex);
+            return null;
+        }
+    }
+
+    /**
+     * Running slave containers of the cloud, or null (and the host marked failed) when they can't be listed.
+     *
+     * @param imageName if null, slave containers of all images are counted.
+     */
+    @CheckForNull
+    Integer countSlaves(@Nullable String imageName) {
+        try {
+            int count = containerInventory.countSlaves(imageName);
+            recordSuccess();
+            return count;
+        } catch (RuntimeException ex) {
+            recordFailure(ex);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DockerHost{" + getDisplayName() + '}';
+    }
+}
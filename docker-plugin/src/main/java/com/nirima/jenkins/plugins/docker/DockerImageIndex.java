@@ -0,0 +1,138 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.Image;
+import com.github.dockerjava.core.NameParser;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of "repo:tag" to image id for one {@link DockerHost}.
+ * <p/>
+ * Loaded with one {@code listImagesCmd}, dropped on image events
+ * (pull, tag, untag, delete) and after {@link #TTL_MILLIS}.
+ */
+public class DockerImageIndex implements DockerEventStream.Listener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerImageIndex.class);
+
+    public static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final DockerHost host;
+
+    private final DockerEventStream eventStream;
+
+    private volatile Map<String, String> imageIds = Collections.emptyMap();
+
+    /**
+     * 0 when never loaded or invalidated.
+     */
+    private volatile long loaded;
+
+    public DockerImageIndex(DockerHost host, DockerEventStream eventStream) {
+        this.host = host;
+        this.eventStream = eventStream;
+        eventStream.addListener(this);
+    }
+
+    /**
+     * Image name without tag is treated as "latest", a reference by digest is kept as is.
+     *
+     * @return "repo:tag" form used as index key
+     */
+    public static String fullImageName(String imageName) {
+        if (imageName.contains("@")) {
+            return imageName;
+        }
+        NameParser.ReposTag repostag = NameParser.parseRepositoryTag(imageName);
+        return repostag.repos + ":" + (repostag.tag.isEmpty() ? "latest" : repostag.tag);
+    }
+
+    public boolean contains(String imageName) {
+        return getImageId(imageName) != null;
+    }
+
+    @CheckForNull
+    public String getImageId(String imageName) {
+        return load().get(fullImageName(imageName));
+    }
+
+    public void invalidate() {
+        loaded = 0;
+    }
+
+    private Map<String, String> load() {
+        if (isFresh()) {
+            return imageIds;
+        }
+
+        synchronized (this) {
+            if (isFresh()) {
+                return imageIds;
+            }
+
+            eventStream.ensureConnected();
+
+            final long started = System.currentTimeMillis();
+            final List<Image> images;
+            try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+                images = lease.getClient().listImagesCmd().exec();
+            } catch (RuntimeException ex) {
+                host.recordCall(started, ex);
+                throw ex;
+            }
+            host.recordCall(started, null);
+            Map<String, String> newImageIds = new HashMap<>();
+            for (Image image : images) {
+                if (image.getRepoTags() == null) {
+                    continue;
+                }
+                for (String repoTag : image.getRepoTags()) {
+                    newImageIds.put(repoTag, image.getId());
+                }
+            }
+
+            imageIds = newImageIds;
+            loaded = System.currentTimeMillis();
+            LOGGER.debug("Loaded {} image tag(s) of '{}'", newImageIds.size(), host.getDisplayName());
+
+            return newImageIds;
+        }
+    }
+
+    private boolean isFresh() {
+        return loaded != 0 && System.currentTimeMillis() - loaded < TTL_MILLIS;
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        final String status = event.getStatus();
+        if (status == null) {
+            return;
+        }
+
+        switch (status) {
+            case "pull":
+            case "tag":
+            case "untag":
+            case "delete":
+            case "import":
+                invalidate();
+                break;
+            default:
+                // container events
+        }
+    }
+
+    @Override
+    public void onStreamLost() {
+        invalidate();
+    }
+}
@@ -3,15 +3,12 @@ package com.nirima.jenkins.plugins.docker;
 import shaded.com.google.common.base.Function;
 import shaded.com.google.common.collect.Collections2;
 
-import com.github.dockerjava.api.model.Container;
-
 import org.kohsuke.stapler.StaplerProxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
 
 import javax.annotation.Nullable;
 
@@ -107,8 +104,7 @@ public class DockerManagement extends ManagementLink implements StaplerProxy, De
 
             public String getActiveHosts() {
                 try {
-                    List<Container> containers = cloud.getClient().listContainersCmd().exec();
-                    return "(" + containers.size() + ")";
+                    return "(" + cloud.countCurrentDockerSlaves(null) + ")";
                 } catch(Exception ex) {
                     return "Error";
                 }
@@ -1,5 +1,10 @@
 package com.nirima.jenkins.plugins.docker;
 
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Image;
+import com.nirima.jenkins.plugins.docker.client.AsyncDockerClient;
+import com.nirima.jenkins.plugins.docker.utils.CircuitBreaker;
 import com.nirima.jenkins.plugins.docker.utils.Consts;
 import hudson.Extension;
 import hudson.model.Describable;
@@ -8,16 +13,31 @@ import jenkins.model.Jenkins;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by magnayn on 22/02/2014.
  */
 public class DockerManagementServer  implements Describable<DockerManagementServer> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerManagementServer.class);
+
+    /**
+     * How long to wait for hosts of a cloud without read timeout.
+     */
+    private static final int LIST_TIMEOUT_SECONDS = 30;
+
     final String name;
     final DockerCloud theCloud;
 
@@ -35,11 +55,67 @@ public class DockerManagementServer  implements Describable<DockerManagementServ
     }
 
     public Collection getImages(){
-        return theCloud.getClient().listImagesCmd().exec();
+        return listFromAllHosts(new AsyncDockerClient.Call<List<Image>>() {
+            @Override
+            public List<Image> call(DockerClient client) {
+                return client.listImagesCmd().exec();
+            }
+        });
     }
 
     public Collection getProcesses() {
-        return theCloud.getClient().listContainersCmd().exec();
+        return listFromAllHosts(new AsyncDockerClient.Call<List<Container>>() {
+            @Override
+            public List<Container> call(DockerClient client) {
+                return client.listContainersCmd().exec();
+            }
+        });
+    }
+
+    /**
+     * Docker calls of the cloud, for the queue metrics.
+     */
+    public AsyncDockerClient getCalls() {
+        return theCloud.getAsyncClient();
+    }
+
+    /**
+     * @return containers of terminated slaves waiting to be stopped and removed
+     */
+    public int getPendingTeardowns() {
+        return theCloud.getTeardown().getPending();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return theCloud.getCircuitBreaker().getState();
+    }
+
+    /**
+     * Asks all hosts at once, hosts that don't answer within the read timeout of the cloud are left out.
+     */
+    private <T> List<T> listFromAllHosts(AsyncDockerClient.Call<List<T>> call) {
+        final List<DockerHost> hosts = theCloud.getHosts();
+        List<ListenableFuture<List<T>>> futures = new ArrayList<>();
+        for (DockerHost host : hosts) {
+            futures.add(host.submit(call));
+        }
+
+        final int timeoutSeconds = theCloud.readTimeout > 0 ? theCloud.readTimeout + 1 : LIST_TIMEOUT_SECONDS;
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            final ListenableFuture<List<T>> future = futures.get(i);
+            try {
+                result.addAll(future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
+                LOGGER.warn("Leaving out {}, it did not answer: {}", hosts.get(i).getDisplayName(), e.toString());
+            }
+        }
+        return result;
     }
 
     public String asTime(Long time) {
@@ -56,12 +132,20 @@ public class DockerManagementServer  implements Describable<DockerManagementServ
         return Consts.PLUGIN_JS_URL + jsName;
     }
 
-    public void doControlSubmit(@QueryParameter("stopId") String stopId, StaplerRequest req, StaplerResponse rsp) throws ServletException,
+    public void doControlSubmit(@QueryParameter("stopId") final String stopId, StaplerRequest req, StaplerResponse rsp) throws ServletException,
             IOException,
             InterruptedException {
 
-        theCloud.getClient()
-            .stopContainerCmd(stopId).exec();
+        final DockerHost host = theCloud.getHostOf(stopId);
+        if (host != null) {
+            host.submit(new AsyncDockerClient.Call<Void>() {
+                @Override
+                public Void call(DockerClient client) {
+                    client.stopContainerCmd(stopId).exec();
+                    return null;
+                }
+            });
+        }
 
         rsp.sendRedirect(".");
     }
@@ -0,0 +1,127 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.model.Event;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Takes a {@link DockerComputer} offline as soon as the {@link DockerEventStream} of its host tells
+ * that its container ran out of memory, died or was removed, instead of asking docker per node.
+ * <p/>
+ * Events missed while the stream was down are replayed when it reconnects from the last seen event,
+ * which {@link Reconnect} makes happen within a minute even when nothing else uses the host.
+ * Its retention strategy terminates the slave afterwards, as for any other offline slave.
+ */
+public class DockerNodeLiveness implements DockerEventStream.Listener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerNodeLiveness.class);
+
+    private final DockerHost host;
+
+    DockerNodeLiveness(DockerHost host, DockerEventStream eventStream) {
+        this.host = host;
+        eventStream.addListener(this);
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        final String status = event.getStatus();
+        final String id = event.getId();
+        if (status == null || id == null || id.length() < 12) {
+            return;
+        }
+
+        final String description;
+        switch (status) {
+            case "oom":
+                description = "Container " + id + " ran out of memory";
+                break;
+            case "die":
+                description = "Container " + id + " died";
+                break;
+            case "destroy":
+                description = "Container " + id + " was removed";
+                break;
+            default:
+                return;
+        }
+
+        final Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return;
+        }
+
+        // slaves are mostly named after their container, see DockerContainerLabels
+        Node node = jenkins.getNode(DockerContainerLabels.nodeName(host.getCloud().getDisplayName(), id));
+        if (!isSlaveOf(node, id)) {
+            node = null;
+            for (Node n : jenkins.getNodes()) {
+                if (isSlaveOf(n, id)) {
+                    node = n;
+                    break;
+                }
+            }
+            if (node == null) {
+                return;
+            }
+        }
+
+        final Computer computer = node.toComputer();
+        // keep the first cause, "die" follows "oom"
+        if (computer == null || computer.getOfflineCause() instanceof DockerOfflineCause) {
+            return;
+        }
+
+        LOGGER.info("{}, taking '{}' offline", description, node.getNodeName());
+        computer.disconnect(new DockerOfflineCause(description));
+    }
+
+    private static boolean isSlaveOf(Node node, String containerId) {
+        return node instanceof DockerSlave && containerId.equals(((DockerSlave) node).getContainerId());
+    }
+
+    @Override
+    public void onStreamLost() {
+        // nothing to resync, the stream resumes from the last seen event
+    }
+
+    /**
+     * Re-opens lost event streams of hosts with slaves every minute.
+     */
+    @Extension
+    public static class Reconnect extends AsyncPeriodicWork {
+
+        public Reconnect() {
+            super("Docker event stream reconnect");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            for (Node node : Jenkins.getInstance().getNodes()) {
+                if (!(node instanceof DockerSlave)) {
+                    continue;
+                }
+                try {
+                    final DockerHost host = ((DockerSlave) node).getHost();
+                    if (host.isAvailable() && !host.getEventStream().isConnected()) {
+                        host.getEventStream().ensureConnected();
+                    }
+                } catch (Exception ex) {
+                    LOGGER.warn("Failed to reconnect event stream for '{}': {}", node.getNodeName(), ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -6,8 +6,21 @@ import hudson.slaves.OfflineCause;
  * @author Kanstantsin Shautsou
  */
 public class DockerOfflineCause extends OfflineCause {
+    private final String description;
+
+    public DockerOfflineCause() {
+        this("Shutting down Docker");
+    }
+
+    /**
+     * @param description what happened to the container
+     */
+    public DockerOfflineCause(String description) {
+        this.description = description;
+    }
+
     @Override
     public String toString() {
-        return "Shutting down Docker";
+        return description;
     }
 }
@@ -0,0 +1,138 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.NotFoundException;
+import com.github.dockerjava.api.model.Container;
+import com.nirima.jenkins.plugins.docker.client.AsyncDockerClient;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops and removes containers labelled as slaves of a cloud of this Jenkins that have no
+ * {@link DockerSlave} anymore, i.e. left behind by a restart or a failed termination.
+ * <p/>
+ * Containers younger than {@link #GRACE_MILLIS} are left alone, their slave may still be provisioning,
+ * and so are pooled ones and those handed to provisioning, until {@link #GRACE_MILLIS} after it ended.
+ * At most {@link #BATCH} containers per host are reaped per run, on the cloud's docker threads.
+ */
+@Extension
+public class DockerOrphanReaper extends AsyncPeriodicWork {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerOrphanReaper.class);
+
+    public static final long GRACE_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    public static final int BATCH = 20;
+
+    public DockerOrphanReaper() {
+        super("Docker orphan container reaper");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return 5 * MIN;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        final Set<String> inUse = new HashSet<>();
+        for (Node node : Jenkins.getInstance().getNodes()) {
+            if (node instanceof DockerSlave && ((DockerSlave) node).getContainerId() != null) {
+                inUse.add(((DockerSlave) node).getContainerId());
+            }
+        }
+
+        for (DockerCloud cloud : PluginImpl.getInstance().getServers()) {
+            for (DockerHost host : cloud.getHosts()) {
+                if (!host.isAvailable()) {
+                    continue;
+                }
+                try {
+                    reap(cloud, host, inUse);
+                } catch (ExecutionException ex) {
+                    LOGGER.warn("Failed to look for orphan containers on '{}': {}", host.getDisplayName(),
+                            ex.getCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void reap(final DockerCloud cloud, final DockerHost host, Set<String> inUse)
+            throws ExecutionException, InterruptedException {
+        final List<Container> labelled = host.submit(new AsyncDockerClient.Call<List<Container>>() {
+            @Override
+            public List<Container> call(DockerClient client) {
+                return client.listContainersCmd()
+                        .withShowAll(true)
+                        .withLabelFilter(DockerContainerLabels.of(cloud))
+                        .exec();
+            }
+        }).get();
+
+        final long now = System.currentTimeMillis();
+        cloud.pruneHandedOut(now, GRACE_MILLIS);
+
+        final List<ListenableFuture<Void>> removals = new ArrayList<>();
+        for (final Container container : labelled) {
+            if (removals.size() >= BATCH) {
+                break;
+            }
+            if (!isOrphan(cloud, container, inUse, now)) {
+                continue;
+            }
+
+            LOGGER.info("Removing orphan container {} of '{}', node {} is gone", container.getId(),
+                    host.getDisplayName(), DockerContainerLabels.nodeName(cloud.getDisplayName(), container.getId()));
+            removals.add(host.submit(new AsyncDockerClient.Call<Void>() {
+                @Override
+                public Void call(DockerClient client) {
+                    try {
+                        client.stopContainerCmd(container.getId()).withTimeout(cloud.getStopTimeout()).exec();
+                    } catch (RuntimeException ex) {
+                        // not running, or gone
+                        LOGGER.debug("Failed to stop orphan container {}: {}", container.getId(), ex.getMessage());
+                    }
+                    try {
+                        client.removeContainerCmd(container.getId()).withForce(true).exec();
+                    } catch (NotFoundException ex) {
+                        // gone already
+                    }
+                    host.getContainerInventory().recordRemoved(container.getId());
+                    return null;
+                }
+            }));
+        }
+
+        for (ListenableFuture<Void> removal : removals) {
+            try {
+                removal.get();
+            } catch (ExecutionException ex) {
+                LOGGER.warn("Failed to remove orphan container on '{}': {}", host.getDisplayName(),
+                        ex.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param inUse containers of the slaves of this Jenkins
+     */
+    static boolean isOrphan(DockerCloud cloud, Container container, Set<String> inUse, long now) {
+        return !inUse.contains(container.getId())
+                && !cloud.getWarmPool().contains(container.getId())
+                && !cloud.isHandedOut(container.getId(), now, GRACE_MILLIS)
+                && now - TimeUnit.SECONDS.toMillis(container.getCreated()) >= GRACE_MILLIS;
+    }
+}
@@ -0,0 +1,69 @@
+package com.nirima.jenkins.plugins.docker;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Containers of one {@link DockerTemplate} planned by the same {@link DockerCloud#provision} call.
+ * <p/>
+ * The image is checked and pulled once per host for the whole batch, also when the pull strategy
+ * would pull for every container. Containers are then created, started and inspected concurrently,
+ * bounded by {@link DockerCloud#getMaxParallelStarts()}, and each planned node completes on its own
+ * as soon as its container is up.
+ */
+class DockerProvisioningBatch {
+
+    private final DockerCloud cloud;
+
+    private final DockerTemplate template;
+
+    /**
+     * Pulls per host, kept for the life of the batch.
+     */
+    private final ConcurrentHashMap<DockerHost, FutureTask<Void>> pulls = new ConcurrentHashMap<>();
+
+    DockerProvisioningBatch(DockerCloud cloud, DockerTemplate template) {
+        this.cloud = cloud;
+        this.template = template;
+    }
+
+    /**
+     * Pulls the image on the host unless the batch already did.
+     */
+    void pullOnce(final DockerHost host) throws IOException {
+        FutureTask<Void> pull = pulls.get(host);
+        if (pull == null) {
+            FutureTask<Void> created = new FutureTask<>(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    cloud.pullImage(template, host);
+                    return null;
+                }
+            });
+            pull = pulls.putIfAbsent(host, created);
+            if (pull == null) {
+                pull = created;
+                created.run();
+            }
+        }
+
+        try {
+            pull.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pulling image '" + template.getDockerTemplateBase().getImage() + "'", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to pull image '" + template.getDockerTemplateBase().getImage() + "'", cause);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import hudson.Extension;
 import hudson.model.*;
 import hudson.model.queue.CauseOfBlockage;
 import hudson.slaves.*;
+import hudson.util.StreamTaskListener;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import shaded.com.google.common.base.MoreObjects;
@@ -15,8 +16,10 @@ import shaded.com.google.common.base.Strings;
 
 import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,6 +35,9 @@ public class DockerSlave extends AbstractCloudSlave {
     // remember cloud name
     @CheckForNull private String cloudId;
 
+    // remember docker host of the cloud, null for the first one
+    @CheckForNull private String serverUrl;
+
     private transient Run theRun;
 
     public DockerSlave(DockerTemplate dockerTemplate, String containerId,
@@ -83,6 +89,14 @@ public class DockerSlave extends AbstractCloudSlave {
         this.cloudId = cloudId;
     }
 
+    public String getServerUrl() {
+        return serverUrl;
+    }
+
+    public void setServerUrl(String serverUrl) {
+        this.serverUrl = serverUrl;
+    }
+
     public DockerTemplate getDockerTemplate() {
         return dockerTemplate;
     }
@@ -133,54 +147,90 @@ public class DockerSlave extends AbstractCloudSlave {
 
     public boolean containerExistsInCloud() {
         try {
-            DockerClient client = getClient();
-            client.inspectContainerCmd(containerId).exec();
-            return true;
+            return getHost().getContainerInventory().contains(containerId);
         } catch (Exception ex) {
             return false;
         }
     }
 
+    /**
+     * Same as {@link AbstractCloudSlave#terminate()}, but takes the queue lock for the removal of the node,
+     * so the queue can't hand it a task meanwhile. Nothing that waits for docker happens under the lock.
+     */
+    @Override
+    public void terminate() throws InterruptedException, IOException {
+        try {
+            _terminate(new StreamTaskListener(System.out, Charset.defaultCharset()));
+        } finally {
+            final Jenkins jenkins = Jenkins.getInstance();
+            synchronized (jenkins.getQueue()) {
+                jenkins.removeNode(this);
+            }
+        }
+    }
+
     @Override
     protected void _terminate(TaskListener listener) throws IOException, InterruptedException {
         try {
-            toComputer().disconnect(new DockerOfflineCause());
-            LOGGER.log(Level.INFO, "Disconnected computer");
+            final Computer computer = toComputer();
+            if (computer != null) {
+                computer.disconnect(new DockerOfflineCause());
+                LOGGER.log(Level.INFO, "Disconnected computer");
+            }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Can't disconnect", e);
         }
 
         if (containerId != null) {
-            try {
-                DockerClient client = getClient();
-                client.stopContainerCmd(getContainerId()).exec();
-                LOGGER.log(Level.INFO, "Stopped container {0}", getContainerId());
-            } catch (Exception ex) {
-                LOGGER.log(Level.SEVERE, "Failed to stop instance " + getContainerId() + " for slave " + name + " due to exception", ex.getMessage());
-            }
+            // a slow daemon must not hold the caller, the node is removed right after this returns
+            getCloud().getTeardown().schedule(this, listener);
+        } else {
+            LOGGER.log(Level.SEVERE, "ContainerId is absent, no way to remove/stop container");
+        }
+    }
 
-            // If the run was OK, then do any tagging here
-            if (theRun != null) {
-                try {
-                    slaveShutdown(listener);
-                    LOGGER.log(Level.INFO, "Shutdowned slave for {0}", getContainerId());
-                } catch (Exception e) {
-                    LOGGER.log(Level.SEVERE, "Failure to slaveShutdown instance " + getContainerId() + " for slave " + name, e);
-                }
-            }
+    /**
+     * Outcomes of the stop and remove calls count in the {@link DockerCloud#getCircuitBreaker() circuit breaker}
+     * of the cloud, like those made through {@link DockerHost#submit}.
+     *
+     * @param stopTimeout seconds to wait for the container to stop before it is killed
+     */
+    void stopAndRemove(DockerClient client, int stopTimeout, TaskListener listener) {
+        final DockerHost host = getHost();
+
+        // the daemon may wait stopTimeout for the container, only time on top of that is slow
+        long started = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(stopTimeout);
+        try {
+            client.stopContainerCmd(getContainerId()).withTimeout(stopTimeout).exec();
+            host.recordCall(started, null);
+            LOGGER.log(Level.INFO, "Stopped container {0}", getContainerId());
+        } catch (Exception ex) {
+            host.recordCall(started, ex);
+            LOGGER.log(Level.SEVERE, "Failed to stop instance " + getContainerId() + " for slave " + name + " due to exception", ex.getMessage());
+        }
 
+        // If the run was OK, then do any tagging here
+        if (theRun != null) {
             try {
-                DockerClient client = getClient();
-                client.removeContainerCmd(containerId)
-                        .withRemoveVolumes(getDockerTemplate().isRemoveVolumes())
-                        .exec();
-
-                LOGGER.log(Level.INFO, "Removed container {0}", getContainerId());
-            } catch (Exception ex) {
-                LOGGER.log(Level.SEVERE, "Failed to remove instance " + getContainerId() + " for slave " + name + " due to exception: " + ex.getMessage());
+                slaveShutdown(listener);
+                LOGGER.log(Level.INFO, "Shutdowned slave for {0}", getContainerId());
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Failure to slaveShutdown instance " + getContainerId() + " for slave " + name, e);
             }
-        } else {
-            LOGGER.log(Level.SEVERE, "ContainerId is absent, no way to remove/stop container");
+        }
+
+        started = System.currentTimeMillis();
+        try {
+            client.removeContainerCmd(containerId)
+                    .withRemoveVolumes(getDockerTemplate().isRemoveVolumes())
+                    .exec();
+            host.recordCall(started, null);
+            host.getContainerInventory().recordRemoved(containerId);
+
+            LOGGER.log(Level.INFO, "Removed container {0}", getContainerId());
+        } catch (Exception ex) {
+            host.recordCall(started, ex);
+            LOGGER.log(Level.SEVERE, "Failed to remove instance " + getContainerId() + " for slave " + name + " due to exception: " + ex.getMessage());
         }
     }
 
@@ -252,12 +302,19 @@ public class DockerSlave extends AbstractCloudSlave {
      * Add a built on docker action.
      */
     private void addJenkinsAction(String tag_image) throws IOException {
-        theRun.addAction(new DockerBuildAction(getCloud().serverUrl, containerId, tag_image, dockerTemplate.remoteFsMapping));
+        theRun.addAction(new DockerBuildAction(getHost().getServerUrl(), containerId, tag_image, dockerTemplate.remoteFsMapping));
         theRun.save();
     }
 
+    /**
+     * Docker host of the cloud that runs the container.
+     */
+    public DockerHost getHost() {
+        return getCloud().getHost(serverUrl);
+    }
+
     public DockerClient getClient() {
-        return getCloud().getClient();
+        return getHost().getClient();
     }
 
     /**
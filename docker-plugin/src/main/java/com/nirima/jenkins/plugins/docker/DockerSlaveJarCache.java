@@ -0,0 +1,207 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.NotFoundException;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.Volume;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import hudson.Util;
+import hudson.model.Computer;
+import jenkins.model.Jenkins;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * slave.jar of this Jenkins, kept in a volume of a stopped container on one {@link DockerHost},
+ * so JNLP slave containers mount it read-only through {@code volumes-from} instead of downloading it.
+ * <p/>
+ * The container is named after the checksum of slave.jar and filled once per host by running
+ * {@code wget} in the image of the first template that needs it, in the background on
+ * {@link Computer#threadPoolForRemoting}, so waiting for the download doesn't hold one of the threads of
+ * {@link DockerCloud#getAsyncClient()} from other docker calls. A new slave.jar, e.g. after an upgrade,
+ * gets a new container. Until the cache is ready, or when filling it failed within {@link #RETRY_MILLIS},
+ * slaves download slave.jar themselves. Removing the container drops the cache.
+ */
+public class DockerSlaveJarCache implements DockerEventStream.Listener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerSlaveJarCache.class);
+
+    /**
+     * Where slave containers find slave.jar.
+     */
+    public static final String PATH = "/jenkins-slave-jar";
+
+    private static final String CONTAINER_PREFIX = "jenkins-slave-jar-";
+
+    public static final long RETRY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Longest a fill may take, enough for the three downloads of {@link #WGET_TIMEOUT_SECONDS} it tries.
+     */
+    public static final long FILL_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private static final int WGET_TIMEOUT_SECONDS = 30;
+
+    private static final long POLL_MILLIS = 500;
+
+    private static volatile String checksum;
+
+    private final DockerHost host;
+
+    private final AtomicBoolean filling = new AtomicBoolean();
+
+    /**
+     * Name of the filled container, null until filled.
+     */
+    private volatile String container;
+
+    private volatile String containerId;
+
+    private volatile long failedAt;
+
+    public DockerSlaveJarCache(DockerHost host, DockerEventStream eventStream) {
+        this.host = host;
+        eventStream.addListener(this);
+    }
+
+    /**
+     * Starts filling the cache with a container of the image unless it is filled or being filled already.
+     *
+     * @param image image with a shell and wget
+     * @return name of the container holding slave.jar, null if there is none yet
+     */
+    @CheckForNull
+    public String getContainer(final String image) {
+        final String name;
+        try {
+            name = CONTAINER_PREFIX + checksum().substring(0, 12);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read slave.jar: {}", ex.getMessage());
+            return null;
+        }
+
+        if (name.equals(container)) {
+            return name;
+        }
+        if (System.currentTimeMillis() - failedAt < RETRY_MILLIS) {
+            return null;
+        }
+
+        if (filling.compareAndSet(false, true)) {
+            Computer.threadPoolForRemoting.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+                        fill(lease.getClient(), name, image);
+                        container = name;
+                    } catch (Exception ex) {
+                        failedAt = System.currentTimeMillis();
+                        LOGGER.warn("Failed to cache slave.jar on '{}', slaves download it for {} min: {}",
+                                host.getDisplayName(), TimeUnit.MILLISECONDS.toMinutes(RETRY_MILLIS), ex.getMessage());
+                    } finally {
+                        filling.set(false);
+                    }
+                    return null;
+                }
+            });
+        }
+        return null;
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        if ("destroy".equals(event.getStatus()) && event.getId() != null && event.getId().equals(containerId)) {
+            LOGGER.info("Cache container of slave.jar on '{}' was removed", host.getDisplayName());
+            container = null;
+        }
+    }
+
+    @Override
+    public void onStreamLost() {
+        // it may have been removed meanwhile, the next use looks for it again
+        container = null;
+    }
+
+    private void fill(DockerClient client, String name, String image) throws IOException, InterruptedException {
+        try {
+            final InspectContainerResponse existing = client.inspectContainerCmd(name).exec();
+            if (!existing.getState().isRunning() && existing.getState().getExitCode() == 0) {
+                LOGGER.debug("slave.jar is cached on '{}' in {}", host.getDisplayName(), name);
+                containerId = existing.getId();
+                return;
+            }
+            // left over from a failed fill
+            client.removeContainerCmd(name).withForce(true).exec();
+        } catch (NotFoundException ex) {
+            // not filled yet
+        }
+
+        final String url = Jenkins.getInstance().getRootUrl() + "jnlpJars/slave.jar";
+        // three tries, each timing out, -t is not understood by busybox wget
+        final String download = "for i in 1 2 3; do"
+                + " wget -q -T " + WGET_TIMEOUT_SECONDS + " '" + url + "' -O " + PATH + "/slave.jar.tmp"
+                + " && mv " + PATH + "/slave.jar.tmp " + PATH + "/slave.jar && exit 0;"
+                + " sleep 1; done; exit 1";
+        final String id = client.createContainerCmd(image)
+                .withName(name)
+                .withVolumes(new Volume(PATH))
+                .withEntrypoint("/bin/sh", "-c", download)
+                .exec()
+                .getId();
+        client.startContainerCmd(id).exec();
+
+        // polled, a wait call would hold the connection for as long as the download takes
+        final long deadline = System.currentTimeMillis() + FILL_TIMEOUT_MILLIS;
+        InspectContainerResponse filled;
+        while ((filled = client.inspectContainerCmd(id).exec()).getState().isRunning()) {
+            if (System.currentTimeMillis() > deadline) {
+                client.removeContainerCmd(id).withForce(true).exec();
+                throw new IOException("Downloading slave.jar in " + image + " took longer than "
+                        + TimeUnit.MILLISECONDS.toSeconds(FILL_TIMEOUT_MILLIS) + " s");
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+
+        final int exitCode = filled.getState().getExitCode();
+        if (exitCode != 0) {
+            client.removeContainerCmd(id).withForce(true).exec();
+            throw new IOException("Downloading slave.jar in " + image + " exited with " + exitCode);
+        }
+        containerId = id;
+        LOGGER.info("Cached slave.jar on '{}' in {}", host.getDisplayName(), name);
+    }
+
+    /**
+     * @return SHA-1 of the slave.jar this Jenkins serves
+     */
+    static String checksum() throws IOException {
+        if (checksum == null) {
+            final MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IOException(ex);
+            }
+
+            try (InputStream in = new DigestInputStream(
+                    Jenkins.getInstance().getJnlpJars("slave.jar").getURL().openStream(), digest)) {
+                final byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // digesting
+                }
+            }
+            checksum = Util.toHexString(digest.digest());
+        }
+        return checksum;
+    }
+}
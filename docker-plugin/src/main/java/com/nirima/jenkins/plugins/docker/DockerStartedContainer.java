@@ -0,0 +1,55 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.launcher.DockerComputerLauncher;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * A container started by a {@link DockerCloud}, with the host it was started on, so nothing
+ * has to look the host up again while the container becomes a slave.
+ */
+public class DockerStartedContainer {
+
+    private final DockerHost host;
+
+    private final InspectContainerResponse inspect;
+
+    /**
+     * Slave added before the container started, see {@link DockerComputerLauncher#isSlaveAddedBeforeStart()}.
+     */
+    @CheckForNull
+    private final DockerSlave slave;
+
+    public DockerStartedContainer(DockerHost host, InspectContainerResponse inspect) {
+        this(host, inspect, null);
+    }
+
+    public DockerStartedContainer(DockerHost host, InspectContainerResponse inspect, @CheckForNull DockerSlave slave) {
+        this.host = host;
+        this.inspect = inspect;
+        this.slave = slave;
+    }
+
+    public DockerHost getHost() {
+        return host;
+    }
+
+    public InspectContainerResponse getInspect() {
+        return inspect;
+    }
+
+    @CheckForNull
+    public DockerSlave getSlave() {
+        return slave;
+    }
+
+    public String getId() {
+        return inspect.getId();
+    }
+
+    @Override
+    public String toString() {
+        return "DockerStartedContainer{" + getId() + " on " + host.getDisplayName() + '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops and removes containers of terminated slaves of one {@link DockerCloud}, off the terminating thread.
+ * <p/>
+ * Slaves are removed from Jenkins right away, their containers queue up here and are torn down by at most
+ * {@link DockerCloud#getMaxParallelTeardowns()} workers on threads of their own, so waiting for containers
+ * to stop doesn't hold the threads of {@link DockerCloud#getAsyncClient()} from provisioning. Each stop
+ * waits at most {@link DockerCloud#getStopTimeout()} seconds before docker kills the container.
+ */
+class DockerTeardown {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerTeardown.class);
+
+    private static final class Request {
+        final DockerSlave slave;
+        final TaskListener listener;
+
+        Request(DockerSlave slave, TaskListener listener) {
+            this.slave = slave;
+            this.listener = listener;
+        }
+    }
+
+    private final DockerCloud cloud;
+
+    private final ConcurrentLinkedQueue<Request> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger workers = new AtomicInteger();
+
+    /**
+     * Never runs more than {@link #workers} threads, which end after a minute without teardowns.
+     */
+    private final ThreadPoolExecutor executor;
+
+    DockerTeardown(DockerCloud cloud) {
+        this.cloud = cloud;
+        this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.MINUTES,
+                new SynchronousQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Docker teardowns for " + cloud.getDisplayName()));
+    }
+
+    /**
+     * Queues the container of the slave for stop, shutdown actions and removal.
+     */
+    void schedule(DockerSlave slave, TaskListener listener) {
+        pending.add(new Request(slave, listener));
+        startWorkers();
+    }
+
+    /**
+     * @return containers waiting for a worker
+     */
+    int getPending() {
+        return pending.size();
+    }
+
+    private void startWorkers() {
+        while (!pending.isEmpty()) {
+            final int current = workers.get();
+            if (current >= cloud.getMaxParallelTeardowns() || current >= pending.size()) {
+                return;
+            }
+            if (workers.compareAndSet(current, current + 1)) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                });
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Request request;
+            while ((request = pending.poll()) != null) {
+                try (DockerClientRegistry.Lease lease = request.slave.getHost().leaseClient()) {
+                    request.slave.stopAndRemove(lease.getClient(), cloud.getStopTimeout(), request.listener);
+                } catch (RuntimeException ex) {
+                    LOGGER.error("Failed to tear down container {} of slave {}", request.slave.getContainerId(),
+                            request.slave.getNodeName(), ex);
+                }
+            }
+        } finally {
+            workers.decrementAndGet();
+        }
+
+        // a request added between the last poll and the decrement saw a full set of workers
+        startWorkers();
+    }
+}
@@ -58,6 +58,21 @@ public class DockerTemplate extends DockerTemplateBackwardCompatibility implemen
 
     private @CheckForNull DockerImagePullStrategy pullStrategy = DockerImagePullStrategy.PULL_LATEST;
 
+    /**
+     * Number of started containers kept ready for new slaves, 0 disables the pool.
+     */
+    private int warmPoolSize = 0;
+
+    /**
+     * Minutes without demand after which the warm pool is drained, 0 keeps it forever.
+     */
+    private int warmPoolIdleMinutes = 0;
+
+    /**
+     * Share of slaves for {@link DockerTemplateSelection#WEIGHTED}, relative to other templates with the same label.
+     */
+    private int weight = 1;
+
     /**
      * fully default
      */
@@ -225,6 +240,33 @@ public class DockerTemplate extends DockerTemplateBackwardCompatibility implemen
         this.pullStrategy = pullStrategy;
     }
 
+    public int getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
+    @DataBoundSetter
+    public void setWarmPoolSize(int warmPoolSize) {
+        this.warmPoolSize = Math.max(warmPoolSize, 0);
+    }
+
+    public int getWarmPoolIdleMinutes() {
+        return warmPoolIdleMinutes;
+    }
+
+    @DataBoundSetter
+    public void setWarmPoolIdleMinutes(int warmPoolIdleMinutes) {
+        this.warmPoolIdleMinutes = Math.max(warmPoolIdleMinutes, 0);
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @DataBoundSetter
+    public void setWeight(int weight) {
+        this.weight = Math.max(weight, 1);
+    }
+
     /**
      * Initializes data structure that we don't persist.
      */
@@ -260,6 +302,11 @@ public class DockerTemplate extends DockerTemplateBackwardCompatibility implemen
             LOGGER.log(Level.SEVERE, "Can't convert old values to new (double conversion?): ", t);
         }
 
+        // added without a config version bump, absent in older configs
+        if (weight < 1) {
+            weight = 1;
+        }
+
         try {
             labelSet = Label.parse(labelString); // fails sometimes under debugger
         } catch (Throwable t) {
@@ -284,6 +331,9 @@ public class DockerTemplate extends DockerTemplateBackwardCompatibility implemen
                 ", dockerTemplateBase=" + dockerTemplateBase +
                 ", removeVolumes=" + removeVolumes +
                 ", pullStrategy=" + pullStrategy +
+                ", warmPoolSize=" + warmPoolSize +
+                ", warmPoolIdleMinutes=" + warmPoolIdleMinutes +
+                ", weight=" + weight +
                 '}';
     }
 
@@ -308,6 +358,20 @@ public class DockerTemplate extends DockerTemplateBackwardCompatibility implemen
             return FormValidation.ok();
         }
 
+        public FormValidation doCheckWarmPoolSize(@QueryParameter int warmPoolSize) {
+            if (warmPoolSize < 0) {
+                return FormValidation.error("Must be >= 0");
+            }
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckWeight(@QueryParameter int weight) {
+            if (weight < 1) {
+                return FormValidation.error("Must be > 0");
+            }
+            return FormValidation.ok();
+        }
+
         @Override
         public String getDisplayName() {
             return "Docker Template";
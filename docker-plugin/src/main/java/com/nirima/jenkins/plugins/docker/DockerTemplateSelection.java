@@ -0,0 +1,74 @@
+package com.nirima.jenkins.plugins.docker;
+
+import java.util.List;
+
+/**
+ * How {@link DockerCloud#provision} picks among the templates matching a label.
+ * <p/>
+ * Called once per planned node with the templates that are not capped yet, so a
+ * single provision round can be spread over all of them.
+ */
+public enum DockerTemplateSelection {
+
+    FIRST("First matching template, next one when capped") {
+        @Override
+        public DockerTemplate select(DockerCloud cloud, List<DockerTemplate> candidates) {
+            return candidates.get(0);
+        }
+    },
+    ROUND_ROBIN("Round robin over matching templates") {
+        @Override
+        public DockerTemplate select(DockerCloud cloud, List<DockerTemplate> candidates) {
+            return candidates.get(cloud.nextTemplateIndex(candidates.size()));
+        }
+    },
+    LEAST_LOADED("Template with fewest running and provisioning containers") {
+        @Override
+        public DockerTemplate select(DockerCloud cloud, List<DockerTemplate> candidates) {
+            DockerTemplate best = null;
+            int bestLoad = Integer.MAX_VALUE;
+            for (DockerTemplate t : candidates) {
+                final int load = cloud.countTemplateLoad(t);
+                if (load < bestLoad) {
+                    best = t;
+                    bestLoad = load;
+                }
+            }
+            return best;
+        }
+    },
+    WEIGHTED("Spread by template weight") {
+        @Override
+        public DockerTemplate select(DockerCloud cloud, List<DockerTemplate> candidates) {
+            // lowest load per weight, compared as load1 * weight2 < load2 * weight1
+            DockerTemplate best = null;
+            long bestLoad = 0;
+            long bestWeight = 1;
+            for (DockerTemplate t : candidates) {
+                final long load = cloud.countTemplateLoad(t);
+                final long weight = t.getWeight();
+                if (best == null || load * bestWeight < bestLoad * weight) {
+                    best = t;
+                    bestLoad = load;
+                    bestWeight = weight;
+                }
+            }
+            return best;
+        }
+    };
+
+    private final String description;
+
+    DockerTemplateSelection(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @param candidates matching templates, never empty
+     */
+    public abstract DockerTemplate select(DockerCloud cloud, List<DockerTemplate> candidates);
+}
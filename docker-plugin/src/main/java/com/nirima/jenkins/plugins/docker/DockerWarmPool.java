@@ -0,0 +1,242 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Containers created and started ahead of demand, per {@link DockerTemplate} of one {@link DockerCloud}.
+ * <p/>
+ * Provisioning takes a pooled container when there is one and refills the pool in the background.
+ * A pool that was not drawn from for {@link DockerTemplate#getWarmPoolIdleMinutes()} is drained
+ * and only refilled on the next demand.
+ */
+public class DockerWarmPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DockerWarmPool.class);
+
+    private static final class TemplatePool {
+        final ConcurrentLinkedQueue<DockerStartedContainer> containers = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean filling = new AtomicBoolean();
+        volatile long lastUsed = System.currentTimeMillis();
+    }
+
+    private final DockerCloud cloud;
+
+    private final ConcurrentHashMap<DockerTemplate, TemplatePool> pools = new ConcurrentHashMap<>();
+
+    public DockerWarmPool(DockerCloud cloud) {
+        this.cloud = cloud;
+    }
+
+    /**
+     * @return number of ready containers pooled for the template
+     */
+    public int size(DockerTemplate template) {
+        TemplatePool pool = pools.get(template);
+        return pool == null ? 0 : pool.containers.size();
+    }
+
+    /**
+     * @return whether the container is pooled, i.e. has no slave on purpose
+     */
+    public boolean contains(String containerId) {
+        for (TemplatePool pool : pools.values()) {
+            for (DockerStartedContainer container : pool.containers) {
+                if (container.getId().equals(containerId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands out a pooled container, if any, and refills the pool asynchronously.
+     *
+     * @return running container that already passed {@code waitUp}, or null
+     */
+    @CheckForNull
+    public DockerStartedContainer take(final DockerTemplate template) {
+        if (poolSize(template) <= 0) {
+            return null;
+        }
+
+        final TemplatePool pool = getPool(template);
+        pool.lastUsed = System.currentTimeMillis();
+
+        DockerStartedContainer container;
+        while ((container = pool.containers.peek()) != null) {
+            // handed out before it leaves the pool, so the orphan reaper always finds it in one of them
+            cloud.recordHandedOut(container.getId());
+            if (!pool.containers.remove(container)) {
+                continue; // taken by somebody else
+            }
+            if (isRunning(container)) {
+                break;
+            }
+            LOGGER.info("Discarding pooled container '{}' of '{}', it is not running anymore",
+                    container.getId(), template.getDockerTemplateBase().getImage());
+            remove(container);
+            cloud.recordProvisioned(container.getId());
+        }
+
+        Computer.threadPoolForRemoting.submit(new Runnable() {
+            @Override
+            public void run() {
+                refill(template);
+            }
+        });
+
+        return container;
+    }
+
+    private static boolean isRunning(DockerStartedContainer container) {
+        try {
+            return container.getHost().getContainerInventory().isRunning(container.getId());
+        } catch (RuntimeException ex) {
+            container.getHost().recordFailure(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Tops up pools of active templates, drains idle pools and pools of removed templates.
+     */
+    public void maintain() {
+        final long now = System.currentTimeMillis();
+
+        for (DockerTemplate template : cloud.getTemplates()) {
+            if (poolSize(template) <= 0) {
+                drain(template);
+                continue;
+            }
+
+            final int idleMinutes = template.getWarmPoolIdleMinutes();
+            if (idleMinutes > 0 && now - getPool(template).lastUsed > TimeUnit.MINUTES.toMillis(idleMinutes)) {
+                drain(template);
+                continue;
+            }
+
+            refill(template);
+        }
+
+        for (DockerTemplate template : pools.keySet()) {
+            if (!cloud.getTemplates().contains(template)) {
+                drain(template);
+                pools.remove(template);
+            }
+        }
+    }
+
+    /**
+     * Creates containers until the pool reaches its target size or a cap is hit.
+     */
+    void refill(DockerTemplate template) {
+        final TemplatePool pool = getPool(template);
+        if (!pool.filling.compareAndSet(false, true)) {
+            return; // somebody else does it
+        }
+
+        final String image = template.getDockerTemplateBase().getImage();
+        try {
+            while (pool.containers.size() < poolSize(template)) {
+                if (!cloud.addProvisionedSlave(template, 0)) {
+                    break;
+                }
+
+                try {
+                    pool.containers.add(cloud.startContainer(template));
+                    LOGGER.info("Added container to warm pool of '{}' in cloud '{}', {} pooled",
+                            image, cloud.getDisplayName(), pool.containers.size());
+                } finally {
+                    cloud.releaseProvisionedSlave(template);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.warn("Failed to fill warm pool of '{}' in cloud '{}'", image, cloud.getDisplayName(), ex);
+        } finally {
+            pool.filling.set(false);
+        }
+    }
+
+    private void drain(DockerTemplate template) {
+        TemplatePool pool = pools.get(template);
+        if (pool == null) {
+            return;
+        }
+
+        DockerStartedContainer container;
+        while ((container = pool.containers.poll()) != null) {
+            LOGGER.info("Removing idle pooled container '{}' of '{}'", container.getId(),
+                    template.getDockerTemplateBase().getImage());
+            remove(container);
+        }
+    }
+
+    private void remove(DockerStartedContainer container) {
+        final DockerHost host = container.getHost();
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            lease.getClient().removeContainerCmd(container.getId()).withForce(true).exec();
+            host.getContainerInventory().recordRemoved(container.getId());
+        } catch (Exception ex) {
+            LOGGER.warn("Failed to remove pooled container '{}': {}", container.getId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Containers that connect as soon as they run have a slave from the start, nothing to pool.
+     */
+    private static int poolSize(DockerTemplate template) {
+        return template.getLauncher().isSlaveAddedBeforeStart() ? 0 : template.getWarmPoolSize();
+    }
+
+    private TemplatePool getPool(DockerTemplate template) {
+        TemplatePool pool = pools.get(template);
+        if (pool == null) {
+            TemplatePool created = new TemplatePool();
+            pool = pools.putIfAbsent(template, created);
+            if (pool == null) {
+                pool = created;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Maintains warm pools of all docker clouds every minute.
+     */
+    @Extension
+    public static class Maintenance extends AsyncPeriodicWork {
+
+        public Maintenance() {
+            super("Docker warm pool maintenance");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            for (DockerCloud cloud : PluginImpl.getInstance().getServers()) {
+                try {
+                    cloud.getWarmPool().maintain();
+                } catch (Exception ex) {
+                    LOGGER.warn("Failed to maintain warm pools of cloud '{}'", cloud.getDisplayName(), ex);
+                }
+            }
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class DockerBuilderControl extends Builder implements Serializable {
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
 
         try {
-            option.execute(build);
+            option.execute(build, listener);
         } catch (DockerException e) {
             throw new RuntimeException(e);
         }
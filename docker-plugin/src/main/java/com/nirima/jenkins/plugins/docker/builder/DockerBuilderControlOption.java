@@ -5,6 +5,7 @@ import com.nirima.jenkins.plugins.docker.action.DockerLaunchAction;
 import hudson.model.AbstractBuild;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
+import hudson.model.TaskListener;
 import jenkins.model.Jenkins;
 
 import java.io.IOException;
@@ -20,6 +21,13 @@ public abstract class DockerBuilderControlOption implements Describable<DockerBu
 
     public abstract void execute(AbstractBuild<?, ?> build) throws DockerException, IOException;
 
+    /**
+     * Same as {@link #execute(AbstractBuild)}, options that report progress override it to use the build log.
+     */
+    public void execute(AbstractBuild<?, ?> build, TaskListener listener) throws DockerException, IOException {
+        execute(build);
+    }
+
     protected DockerLaunchAction getLaunchAction(AbstractBuild<?, ?> build) {
         List<DockerLaunchAction> launchActionList = build.getActions(DockerLaunchAction.class);
         DockerLaunchAction launchAction;
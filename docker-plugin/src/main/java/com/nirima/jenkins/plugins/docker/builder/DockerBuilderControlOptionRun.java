@@ -1,17 +1,16 @@
 package com.nirima.jenkins.plugins.docker.builder;
 
 import com.nirima.jenkins.plugins.docker.*;
+import com.nirima.jenkins.plugins.docker.utils.ImagePullProgress;
 import shaded.com.google.common.base.Strings;
 
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.DockerException;
 
-import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.logging.Level;
 
 import hudson.Extension;
@@ -76,6 +75,11 @@ public class DockerBuilderControlOptionRun extends DockerBuilderControlCloudOpti
 
     @Override
     public void execute(AbstractBuild<?, ?> build) throws DockerException, IOException {
+        execute(build, TaskListener.NULL);
+    }
+
+    @Override
+    public void execute(AbstractBuild<?, ?> build, TaskListener listener) throws DockerException, IOException {
         DockerClient client = getClient(build);
 
         // Expand some token macros
@@ -87,10 +91,9 @@ public class DockerBuilderControlOptionRun extends DockerBuilderControlCloudOpti
 
         LOGGER.info("Pulling image " + xImage);
 
-        InputStream result = client.pullImageCmd(xImage).exec();
-
-        String strResult = IOUtils.toString(result);
-        LOGGER.log(Level.INFO, "Pull result = {0}", strResult);
+        ImagePullProgress progress = new ImagePullProgress(xImage, listener.getLogger())
+                .consume(client.pullImageCmd(xImage).exec());
+        LOGGER.log(Level.INFO, "Pulled {0} bytes in {1} ms", new Object[]{progress.getBytes(), progress.getDurationMillis()});
 
         LOGGER.log(Level.INFO, "Starting container for image {0}", xImage);
 
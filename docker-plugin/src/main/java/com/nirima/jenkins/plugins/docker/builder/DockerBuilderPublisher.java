@@ -11,6 +11,7 @@ import com.nirima.jenkins.plugins.docker.DockerSlave;
 import com.nirima.jenkins.plugins.docker.action.DockerBuildImageAction;
 import com.nirima.jenkins.plugins.docker.client.ClientBuilderForPlugin;
 import com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
@@ -113,10 +114,15 @@ public class DockerBuilderPublisher extends Builder implements Serializable {
         final List<String> tagsToUse;
         final String url;
         // Marshal the builder across the wire.
-        private transient DockerClient _client;
+        // Leased, so the shared client isn't evicted while a long build or push uses it.
+        private transient DockerClientRegistry.Lease _client;
 
         final DockerClientConfig clientConfig;
 
+        final String clientKey;
+
+        final String credentialsId;
+
         Run(final AbstractBuild build, final Launcher launcher, final BuildListener listener) {
             this.build = build;
             this.launcher = launcher;
@@ -132,11 +138,17 @@ public class DockerBuilderPublisher extends Builder implements Serializable {
             if (cloudThatBuildRanOn.isPresent()) {
 
                 // Don't build it yet. This may happen on a remote server.
-                clientConfig = ClientConfigBuilderForPlugin.dockerClientConfig()
-                        .forCloud(cloudThatBuildRanOn.get()).build();
+                // Talk to the host the build ran on, the one url names.
+                final ClientConfigBuilderForPlugin builder = ClientConfigBuilderForPlugin.dockerClientConfig()
+                        .forCloud(cloudThatBuildRanOn.get(), ((DockerSlave) build.getBuiltOn()).getHost().getServerUrl());
+                clientConfig = builder.build();
+                clientKey = builder.getKey();
+                credentialsId = builder.getCredentialsId();
 
             } else {
                 clientConfig = null;
+                clientKey = null;
+                credentialsId = null;
             }
 
         }
@@ -162,12 +174,30 @@ public class DockerBuilderPublisher extends Builder implements Serializable {
                 if (clientConfig == null)
                     throw new RuntimeException("Could not get client because we could not find the cloud that the project was built on. What this build run on Docker?");
 
-                _client = ClientBuilderForPlugin.getInstance(clientConfig).build();
+                _client = ClientBuilderForPlugin.getInstance(clientConfig, clientKey, credentialsId).lease();
+            }
+            return _client.getClient();
+        }
+
+        /**
+         * Releases the client of the JVM this runs in, a later {@link #getClient()} leases it again.
+         */
+        private void releaseClient() {
+            if (_client != null) {
+                _client.close();
+                _client = null;
             }
-            return _client;
         }
 
         boolean run() throws IOException, InterruptedException {
+            try {
+                return doRun();
+            } finally {
+                releaseClient();
+            }
+        }
+
+        private boolean doRun() throws IOException, InterruptedException {
             listener.getLogger().println("Docker Build");
 
             String response = buildImage();
@@ -243,6 +273,9 @@ public class DockerBuilderPublisher extends Builder implements Serializable {
                         return baos.toString();
                     } catch (DockerException e) {
                         throw Throwables.propagate(e);
+                    } finally {
+                        // may run on another node
+                        releaseClient();
                     }
                 }
             });
@@ -294,7 +327,7 @@ public class DockerBuilderPublisher extends Builder implements Serializable {
         Node node = build.getBuiltOn();
         if (node instanceof DockerSlave) {
             DockerSlave slave = (DockerSlave) node;
-            return slave.getCloud().serverUrl;
+            return slave.getHost().getServerUrl();
         }
 
 
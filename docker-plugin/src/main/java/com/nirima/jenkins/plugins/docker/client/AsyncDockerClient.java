@@ -0,0 +1,124 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import com.github.dockerjava.api.DockerClient;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.ListeningExecutorService;
+import shaded.com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the docker calls of one cloud on threads of its own, at most {@link #getMaxConcurrentCalls()}
+ * at a time, and returns futures. Calls over the limit wait in a queue, so a slow daemon fills
+ * this queue instead of {@link hudson.model.Computer#threadPoolForRemoting} or request threads.
+ * <p/>
+ * Threads end after a minute without calls, so nothing needs to be shut down when the cloud is
+ * replaced by a reconfiguration. Callers that wait for docker for long, i.e. for image pulls, should
+ * do so on threads of their own and submit only the calls.
+ *
+ * @see com.nirima.jenkins.plugins.docker.DockerHost#submit(Call)
+ */
+public class AsyncDockerClient {
+
+    /**
+     * A call, or a few, made with the client of a docker host.
+     */
+    public interface Call<T> {
+        T call(DockerClient client) throws Exception;
+    }
+
+    private final int maxConcurrentCalls;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ListeningExecutorService service;
+
+    private final AtomicInteger peakQueued = new AtomicInteger();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param name               for thread names
+     * @param maxConcurrentCalls calls running at the same time
+     */
+    public AsyncDockerClient(String name, int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Docker calls for " + name));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.service = MoreExecutors.listeningDecorator(executor);
+    }
+
+    /**
+     * @param task docker calls, on one host or on hosts of its own choosing
+     */
+    public <T> ListenableFuture<T> submit(final Callable<T> task) {
+        final ListenableFuture<T> future = service.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    return task.call();
+                } catch (Exception | Error ex) {
+                    failed.incrementAndGet();
+                    throw ex;
+                }
+            }
+        });
+
+        final int queued = executor.getQueue().size();
+        int peak;
+        while (queued > (peak = peakQueued.get()) && !peakQueued.compareAndSet(peak, queued)) {
+            // retry
+        }
+
+        return future;
+    }
+
+    /**
+     * Lets calls submitted so far finish and refuses new ones, for a client being replaced.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /**
+     * @return calls waiting for a thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return most calls ever waiting at the same time
+     */
+    public int getPeakQueueDepth() {
+        return peakQueued.get();
+    }
+
+    /**
+     * @return calls running now
+     */
+    public int getActiveCalls() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCalls() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getFailedCalls() {
+        return failed.get();
+    }
+}
@@ -7,6 +7,7 @@ import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.jaxrs.DockerCmdExecFactoryImpl;
 
+import javax.annotation.CheckForNull;
 import java.util.ServiceLoader;
 
 /**
@@ -16,8 +17,23 @@ public class ClientBuilderForPlugin  {
 
     private final DockerClientConfig config;
 
-    private ClientBuilderForPlugin(DockerClientConfig config) {
+    /**
+     * {@link DockerClientRegistry} key, null for a client of its own.
+     */
+    @CheckForNull
+    private final String key;
+
+    /**
+     * Credentials the config was built with, null if none.
+     */
+    @CheckForNull
+    private final String credentialsId;
+
+    private ClientBuilderForPlugin(DockerClientConfig config, @CheckForNull String key,
+                                   @CheckForNull String credentialsId) {
         this.config = config;
+        this.key = key;
+        this.credentialsId = credentialsId;
     }
 
     public static ClientBuilderForPlugin getInstance(DockerClientConfig.DockerClientConfigBuilder dockerClientConfigBuilder) {
@@ -25,18 +41,45 @@ public class ClientBuilderForPlugin  {
     }
 
     public static ClientBuilderForPlugin getInstance(DockerClientConfig dockerClientConfig) {
-        return new ClientBuilderForPlugin(dockerClientConfig);
+        return new ClientBuilderForPlugin(dockerClientConfig, null, null);
     }
 
-    public static ClientBuilderForPlugin getInstance(ClientConfigBuilderForPlugin dockerClientConfig) {
-        return new ClientBuilderForPlugin(dockerClientConfig.build());
+    /**
+     * @param key           registry key the config was built for, see {@link ClientConfigBuilderForPlugin#getKey()}
+     * @param credentialsId credentials the config was built with, null if none
+     */
+    public static ClientBuilderForPlugin getInstance(DockerClientConfig dockerClientConfig, String key,
+                                                     @CheckForNull String credentialsId) {
+        return new ClientBuilderForPlugin(dockerClientConfig, key, credentialsId);
     }
 
+    public static ClientBuilderForPlugin getInstance(ClientConfigBuilderForPlugin dockerClientConfig) {
+        return new ClientBuilderForPlugin(dockerClientConfig.build(), dockerClientConfig.getKey(),
+                dockerClientConfig.getCredentialsId());
+    }
 
+    /**
+     * @return new client of the caller's own, close it when done; see {@link #lease()} for a shared one
+     */
     public DockerClient build() {
+        return newClient(config);
+    }
+
+    /**
+     * Client to use for as long as the lease is held, shared with others built with the same settings.
+     *
+     * @return lease on the shared client when built with a key, else on a new client; close it when done
+     */
+    public DockerClientRegistry.Lease lease() {
+        if (key != null) {
+            return DockerClientRegistry.getInstance().lease(key, credentialsId, config);
+        }
+        return DockerClientRegistry.leaseOwn(newClient(config));
+    }
+
+    static DockerClient newClient(DockerClientConfig config) {
         return DockerClientBuilder.getInstance(config)
                 .withDockerCmdExecFactory(new DockerCmdExecFactoryImpl())
                 .build();
-
     }
 }
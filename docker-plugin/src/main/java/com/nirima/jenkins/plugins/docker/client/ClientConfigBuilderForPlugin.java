@@ -3,25 +3,17 @@ package com.nirima.jenkins.plugins.docker.client;
 import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.common.CertificateCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
-import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.core.DockerClientBuilder;
 import com.github.dockerjava.core.DockerClientConfig;
-import com.github.dockerjava.core.KeystoreSSLConfig;
 import com.github.dockerjava.jaxrs.DockerCmdExecFactoryImpl;
 import com.nirima.jenkins.plugins.docker.DockerCloud;
-import hudson.security.ACL;
-import jenkins.model.Jenkins;
 
 import javax.annotation.Nullable;
 import java.net.URI;
-import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.cloudbees.plugins.credentials.CredentialsMatchers.firstOrNull;
-import static com.cloudbees.plugins.credentials.CredentialsMatchers.withId;
-import static com.cloudbees.plugins.credentials.CredentialsProvider.lookupCredentials;
 import static com.github.dockerjava.core.DockerClientConfig.createDefaultConfigBuilder;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
@@ -33,8 +25,21 @@ public class ClientConfigBuilderForPlugin {
 
     private static final Logger LOGGER = Logger.getLogger(ClientConfigBuilderForPlugin.class.getName());
 
+    /**
+     * Scheme of urls of a local daemon socket, as in unix:///var/run/docker.sock
+     */
+    public static final String UNIX_SCHEME = "unix";
+
     private DockerClientConfig.DockerClientConfigBuilder config = createDefaultConfigBuilder();
 
+    // what the config was built from, for the registry key
+
+    private String uri;
+    private String version;
+    private String credentialsId;
+    private int readTimeoutMillis;
+    private int maxConnections;
+
     private ClientConfigBuilderForPlugin() {
     }
 
@@ -50,20 +55,70 @@ public class ClientConfigBuilderForPlugin {
      * @return docker-java client
      */
     public ClientConfigBuilderForPlugin forCloud(DockerCloud cloud) {
+        return forCloud(cloud, cloud.serverUrl);
+    }
+
+    /**
+     * Same as {@link #forCloud(DockerCloud)}, for one of the hosts of a multi-host cloud
+     *
+     * @param cloud     docker cloud with info about version, creds and timeout
+     * @param serverUrl url of the host
+     *
+     * @return docker-java client
+     */
+    public ClientConfigBuilderForPlugin forCloud(DockerCloud cloud, String serverUrl) {
         LOGGER.log(Level.FINE, "Building connection to docker host \"{0}\" at: {1}",
-                new Object[]{cloud.getDisplayName(), cloud.serverUrl});
+                new Object[]{cloud.getDisplayName(), serverUrl});
 
-        forServer(cloud.serverUrl, cloud.version);
+        forServer(serverUrl, cloud.version);
 
         if (cloud.readTimeout > 0) {
-            config.withReadTimeout((int) SECONDS.toMillis(cloud.readTimeout));
+            readTimeoutMillis = (int) SECONDS.toMillis(cloud.readTimeout);
+            config.withReadTimeout(readTimeoutMillis);
         }
 
+        withMaxConnections(cloud.getMaxConnections());
+
         return withCredentials(cloud.credentialsId);
     }
 
     /**
-     * Method to setup url and docker-api version. Convenient for test-connection purposes and quick requests
+     * Registry key of the client {@link #forCloud(DockerCloud, String)} builds, without building it
+     */
+    public static String keyOf(DockerCloud cloud, String serverUrl) {
+        return key(URI.create(serverUrl).toString(), cloud.version, cloud.credentialsId,
+                cloud.readTimeout > 0 ? (int) SECONDS.toMillis(cloud.readTimeout) : 0, cloud.getMaxConnections());
+    }
+
+    /**
+     * Size of the keep-alive connection pool to the server
+     *
+     * @param maxConnections max connections, 0 for docker-java defaults
+     *
+     * @return this builder
+     */
+    public ClientConfigBuilderForPlugin withMaxConnections(int maxConnections) {
+        if (maxConnections > 0) {
+            this.maxConnections = maxConnections;
+            // one route per client, the daemon
+            config.withMaxTotalConnections(maxConnections)
+                    .withMaxPerRouteConnections(maxConnections);
+        }
+        return this;
+    }
+
+    /**
+     * @param uri docker server uri
+     *
+     * @return true for the socket of a daemon on this machine
+     */
+    public static boolean isUnixSocket(String uri) {
+        return UNIX_SCHEME.equals(URI.create(uri).getScheme());
+    }
+
+    /**
+     * Method to setup url and docker-api version. Convenient for test-connection purposes and quick requests.
+     * Urls with the unix scheme talk to the socket of a local daemon, without tcp or tls.
      *
      * @param uri     docker server uri
      * @param version docker-api version
@@ -71,7 +126,9 @@ public class ClientConfigBuilderForPlugin {
      * @return this builder
      */
     public ClientConfigBuilderForPlugin forServer(String uri, @Nullable String version) {
-        config.withUri(URI.create(uri).toString())
+        this.uri = URI.create(uri).toString();
+        this.version = version;
+        config.withUri(this.uri)
                 .withVersion(version);
         return this;
     }
@@ -84,15 +141,17 @@ public class ClientConfigBuilderForPlugin {
      * @return docker-java client
      */
     public ClientConfigBuilderForPlugin withCredentials(String credentialsId) {
+        this.credentialsId = credentialsId;
         if (isNotBlank(credentialsId)) {
-            Credentials credentials = lookupSystemCredentials(credentialsId);
-
-            if (credentials instanceof CertificateCredentials) {
-                CertificateCredentials certificateCredentials = (CertificateCredentials) credentials;
-                config.withSSLConfig(new KeystoreSSLConfig(
-                        certificateCredentials.getKeyStore(),
-                        certificateCredentials.getPassword().getPlainText()
-                ));
+            DockerCredentialsCache.Resolved resolved = DockerCredentialsCache.getInstance().get(credentialsId);
+            Credentials credentials = resolved == null ? null : resolved.getCredentials();
+
+            if (credentials instanceof CertificateCredentials && uri != null && isUnixSocket(uri)) {
+                // the socket is protected by file permissions, there is no tls handshake to make
+                LOGGER.log(Level.FINE, "Ignoring certificate credentials {0} for unix socket {1}",
+                        new Object[]{credentialsId, uri});
+            } else if (credentials instanceof CertificateCredentials) {
+                config.withSSLConfig(resolved.getSslConfig());
             } else if (credentials instanceof StandardUsernamePasswordCredentials) {
                 StandardUsernamePasswordCredentials usernamePasswordCredentials =
                         ((StandardUsernamePasswordCredentials) credentials);
@@ -114,7 +173,29 @@ public class ClientConfigBuilderForPlugin {
     }
 
     /**
-     * Shortcut to build an actual client.
+     * Identifies clients built with the same settings, so they can be shared
+     *
+     * @return key for {@link DockerClientRegistry}
+     */
+    public String getKey() {
+        return key(uri, version, credentialsId, readTimeoutMillis, maxConnections);
+    }
+
+    private static String key(String uri, String version, String credentialsId, int readTimeoutMillis,
+                              int maxConnections) {
+        return uri + "|" + version + "|" + credentialsId + "|" + readTimeoutMillis + "|" + maxConnections;
+    }
+
+    /**
+     * @return credentials the config is built with, null if none
+     */
+    @Nullable
+    public String getCredentialsId() {
+        return isNotBlank(credentialsId) ? credentialsId : null;
+    }
+
+    /**
+     * Shortcut to get an actual client of your own, close it when done.
      *
      * Consider if you actually want to do this or alternatively
      * build the config then build the client, as if your activity is on a remote
@@ -122,7 +203,7 @@ public class ClientConfigBuilderForPlugin {
      * @return
      */
     public DockerClient buildClient() {
-        return ClientBuilderForPlugin.getInstance(build()).build();
+        return ClientBuilderForPlugin.getInstance(this).build();
     }
 
     /**
@@ -134,23 +215,4 @@ public class ClientConfigBuilderForPlugin {
         return config;
     }
 
-    /**
-     * Util method to find credential by id in jenkins
-     *
-     * @param credentialsId credentials to find in jenkins
-     *
-     * @return {@link CertificateCredentials} or {@link StandardUsernamePasswordCredentials} expected
-     */
-    private static Credentials lookupSystemCredentials(String credentialsId) {
-        return firstOrNull(
-                lookupCredentials(
-                        Credentials.class,
-                        Jenkins.getInstance(),
-                        ACL.SYSTEM,
-                        Collections.<DomainRequirement>emptyList()
-                ),
-                withId(credentialsId)
-        );
-    }
-
 }
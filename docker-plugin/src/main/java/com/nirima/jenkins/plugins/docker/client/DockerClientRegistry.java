@@ -0,0 +1,321 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.nirima.jenkins.plugins.docker.DockerCloud;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.slaves.Cloud;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Docker clients shared per endpoint, so each endpoint has one pool of keep-alive connections
+ * instead of a client (and connection pool) per caller that is never closed.
+ * <p/>
+ * Users hold a {@link Lease} on their client: a leased client is not closed until the last lease is
+ * released, and closed after {@link #IDLE_MILLIS} without leases. Cloud hosts hold theirs until the
+ * cloud is reconfigured to not use them anymore or its credentials change.
+ */
+public class DockerClientRegistry {
+    private static final Logger LOGGER = Logger.getLogger(DockerClientRegistry.class.getName());
+
+    public static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final DockerClientRegistry INSTANCE = new DockerClientRegistry();
+
+    private static final class Entry {
+        final DockerClient client;
+
+        /**
+         * Credentials the client was built with, null if none.
+         */
+        @CheckForNull
+        final String credentialsId;
+
+        volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * Leases of cloud hosts, see {@link #acquire}.
+         */
+        final Set<Lease> owners = Collections.newSetFromMap(new ConcurrentHashMap<Lease, Boolean>());
+
+        /**
+         * Leases held, -1 once closed.
+         */
+        final AtomicInteger leases = new AtomicInteger();
+
+        /**
+         * Removed from the registry, closed as soon as it is not leased.
+         */
+        volatile boolean retired;
+
+        Entry(DockerClient client, @CheckForNull String credentialsId) {
+            this.client = client;
+            this.credentialsId = credentialsId;
+        }
+
+        /**
+         * @return false if it is closed already
+         */
+        boolean retain() {
+            int n;
+            while ((n = leases.get()) >= 0) {
+                if (leases.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void release() {
+            lastUsed = System.currentTimeMillis();
+            if (leases.decrementAndGet() == 0 && retired) {
+                closeIfUnused();
+            }
+        }
+
+        void closeIfUnused() {
+            if (leases.compareAndSet(0, -1)) {
+                closeQuietly(client);
+            }
+        }
+    }
+
+    /**
+     * Use of a shared client that keeps it open until {@link #close() released}.
+     */
+    public static final class Lease implements Closeable {
+        private final DockerClient client;
+
+        /**
+         * Null for a client of its own, closed with the lease.
+         */
+        @CheckForNull
+        private final Entry entry;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(DockerClient client, @CheckForNull Entry entry) {
+            this.client = client;
+            this.entry = entry;
+        }
+
+        /**
+         * @return client of the lease, callers must not close it
+         */
+        public DockerClient getClient() {
+            return client;
+        }
+
+        /**
+         * Another lease on the same client, which stays open until both are closed.
+         *
+         * @return null if the client is closed already or is a client of this lease's own
+         */
+        @CheckForNull
+        public Lease share() {
+            if (entry == null || !entry.retain()) {
+                return null;
+            }
+            return new Lease(client, entry);
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (entry != null) {
+                entry.owners.remove(this);
+                entry.release();
+            } else {
+                closeQuietly(client);
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public static DockerClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The client stays open until the lease is closed, even if the registry drops it meanwhile.
+     *
+     * @param key           identifies endpoint and settings, see {@link ClientConfigBuilderForPlugin#getKey()}
+     * @param credentialsId credentials the config was built with, null if none
+     * @param config        used when there is no client for the key yet
+     * @return lease on the shared client, callers must close the lease, not the client
+     */
+    public Lease lease(String key, @CheckForNull String credentialsId, DockerClientConfig config) {
+        while (true) {
+            final Entry entry = entry(key, credentialsId, config);
+            if (entry.retain()) {
+                entry.lastUsed = System.currentTimeMillis();
+                return new Lease(entry.client, entry);
+            }
+            // closed since, its replacement is created on the next turn
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Lease on a client of its own, closed when the lease is.
+     */
+    public static Lease leaseOwn(DockerClient client) {
+        return new Lease(client, null);
+    }
+
+    /**
+     * Same as {@link #lease}, for a {@link DockerHost} of a cloud: besides when the host closes it,
+     * the lease is released once {@link #closeUnused} no longer finds the host in use.
+     */
+    public Lease acquire(String key, @CheckForNull String credentialsId, DockerClientConfig config) {
+        final Lease lease = lease(key, credentialsId, config);
+        lease.entry.owners.add(lease);
+        return lease;
+    }
+
+    /**
+     * Releases the leases of cloud hosts whose keys are not in use anymore and closes their clients,
+     * once other leases on them are released too.
+     */
+    public void closeUnused(Collection<String> inUse) {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            final Entry entry = e.getValue();
+            if (!entry.owners.isEmpty() && !inUse.contains(e.getKey())) {
+                close(e.getKey(), entry);
+                for (Lease owner : entry.owners) {
+                    owner.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the clients built with the credentials, after these changed, once their leases are released.
+     */
+    public void closeWithCredentials(String credentialsId) {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (credentialsId.equals(e.getValue().credentialsId)) {
+                close(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Closes clients that were not leased for {@link #IDLE_MILLIS}.
+     */
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    /* package */ void evictIdle(long now) {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            final Entry entry = e.getValue();
+            if (entry.leases.get() == 0 && now - entry.lastUsed > IDLE_MILLIS) {
+                close(e.getKey(), entry);
+            }
+        }
+    }
+
+    private Entry entry(String key, @CheckForNull String credentialsId, DockerClientConfig config) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            Entry created = new Entry(ClientBuilderForPlugin.newClient(config), credentialsId);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                LOGGER.log(Level.FINE, "Created shared docker client for {0}", config.getUri());
+                entry = created;
+            } else {
+                closeQuietly(created.client);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the client from the registry and closes it, once no lease holds it anymore.
+     */
+    private void close(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            LOGGER.log(Level.FINE, "Closing docker client {0}", key);
+            entry.retired = true;
+            entry.closeIfUnused();
+        }
+    }
+
+    private static void closeQuietly(DockerClient client) {
+        try {
+            client.close();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(Level.FINE, "Failed to close docker client", ex);
+        }
+    }
+
+    /**
+     * Closes clients of hosts that were removed or changed when the Jenkins configuration is saved.
+     */
+    @Extension
+    public static class ReconfigurationListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Jenkins)) {
+                return;
+            }
+
+            final Set<String> inUse = new HashSet<>();
+            for (Cloud cloud : ((Jenkins) o).clouds) {
+                if (cloud instanceof DockerCloud) {
+                    for (DockerHost host : ((DockerCloud) cloud).getHosts()) {
+                        inUse.add(host.getClientKey());
+                    }
+                }
+            }
+
+            getInstance().closeUnused(inUse);
+        }
+    }
+
+    /**
+     * Evicts idle clients every minute.
+     */
+    @Extension
+    public static class IdleEviction extends AsyncPeriodicWork {
+
+        public IdleEviction() {
+            super("Docker client idle eviction");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return MIN;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws IOException, InterruptedException {
+            getInstance().evictIdle();
+        }
+    }
+}
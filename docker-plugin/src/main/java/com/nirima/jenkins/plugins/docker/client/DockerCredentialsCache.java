@@ -0,0 +1,196 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import com.cloudbees.plugins.credentials.Credentials;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.common.CertificateCredentials;
+import com.cloudbees.plugins.credentials.domains.DomainRequirement;
+import com.github.dockerjava.core.KeystoreSSLConfig;
+import com.nirima.jenkins.plugins.docker.DockerCloud;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.slaves.Cloud;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.cloudbees.plugins.credentials.CredentialsMatchers.firstOrNull;
+import static com.cloudbees.plugins.credentials.CredentialsMatchers.withId;
+import static com.cloudbees.plugins.credentials.CredentialsProvider.lookupCredentials;
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+
+/**
+ * Credentials resolved by id, with the keystore of certificate credentials loaded once,
+ * so building a client neither scans the credential stores nor loads the keystore again.
+ * <p/>
+ * Dropped when a save of the system credentials changed them, and after {@link #TTL_MILLIS} for
+ * credentials from other providers, which don't tell about changes.
+ */
+public class DockerCredentialsCache {
+    private static final Logger LOGGER = Logger.getLogger(DockerCredentialsCache.class.getName());
+
+    public static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final DockerCredentialsCache INSTANCE = new DockerCredentialsCache();
+
+    /**
+     * Credentials with what was derived from them.
+     */
+    public static final class Resolved {
+        private final Credentials credentials;
+
+        @CheckForNull
+        private final KeystoreSSLConfig sslConfig;
+
+        private final long resolvedAt;
+
+        Resolved(Credentials credentials, long resolvedAt) {
+            this.credentials = credentials;
+            this.resolvedAt = resolvedAt;
+            if (credentials instanceof CertificateCredentials) {
+                CertificateCredentials certificateCredentials = (CertificateCredentials) credentials;
+                this.sslConfig = new KeystoreSSLConfig(
+                        certificateCredentials.getKeyStore(),
+                        certificateCredentials.getPassword().getPlainText()
+                );
+            } else {
+                this.sslConfig = null;
+            }
+        }
+
+        public Credentials getCredentials() {
+            return credentials;
+        }
+
+        /**
+         * @return ssl config of certificate credentials, else null
+         */
+        @CheckForNull
+        public KeystoreSSLConfig getSslConfig() {
+            return sslConfig;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Resolved> entries = new ConcurrentHashMap<>();
+
+    public static DockerCredentialsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return credentials with the id, null if there are none (not cached, they may be added any time)
+     */
+    @CheckForNull
+    public Resolved get(String credentialsId) {
+        return get(credentialsId, System.currentTimeMillis());
+    }
+
+    @CheckForNull
+    /* package */ Resolved get(String credentialsId, long now) {
+        Resolved resolved = entries.get(credentialsId);
+        if (resolved != null && now - resolved.resolvedAt < TTL_MILLIS) {
+            return resolved;
+        }
+
+        final Credentials credentials = lookupSystemCredentials(credentialsId);
+        if (credentials == null) {
+            entries.remove(credentialsId);
+            return null;
+        }
+
+        resolved = new Resolved(credentials, now);
+        entries.put(credentialsId, resolved);
+        return resolved;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Drops credentials that were edited, removed or added since they were resolved. Credentials stores
+     * replace the instance of credentials that are edited, so saving other credentials keeps them.
+     *
+     * @param inUse ids of credentials clients were built with, besides the cached ones
+     * @return ids of the changed credentials
+     */
+    public Set<String> invalidateChanged(Collection<String> inUse) {
+        final Set<String> ids = new HashSet<>(inUse);
+        ids.addAll(entries.keySet());
+
+        final Set<String> changed = new HashSet<>();
+        for (String id : ids) {
+            final Resolved resolved = entries.get(id);
+            final Credentials current = lookupSystemCredentials(id);
+            if (resolved == null ? current != null : resolved.credentials != current) {
+                entries.remove(id);
+                changed.add(id);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     *
+     * @return {@link CertificateCredentials} or {@link com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials} expected
+     */
+    private static Credentials lookupSystemCredentials(String credentialsId) {
+        return firstOrNull(
+                lookupCredentials(
+                        Credentials.class,
+                        Jenkins.getInstance(),
+                        ACL.SYSTEM,
+                        Collections.<DomainRequirement>emptyList()
+                ),
+                withId(credentialsId)
+        );
+    }
+
+    /**
+     * Drops cached credentials that a save of the system credentials changed, and the clients built with them.
+     * Clients close once the calls using them are done.
+     */
+    @Extension
+    public static class CredentialsChangeListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof SystemCredentialsProvider)) {
+                return;
+            }
+
+            final List<DockerCloud> clouds = new ArrayList<>();
+            final Set<String> inUse = new HashSet<>();
+            for (Cloud cloud : Jenkins.getInstance().clouds) {
+                if (cloud instanceof DockerCloud && isNotBlank(((DockerCloud) cloud).credentialsId)) {
+                    clouds.add((DockerCloud) cloud);
+                    inUse.add(((DockerCloud) cloud).credentialsId);
+                }
+            }
+
+            for (String credentialsId : getInstance().invalidateChanged(inUse)) {
+                LOGGER.log(Level.FINE, "Credentials {0} changed, dropping docker clients using them", credentialsId);
+                for (DockerCloud cloud : clouds) {
+                    if (credentialsId.equals(cloud.credentialsId)) {
+                        for (DockerHost host : cloud.getHosts()) {
+                            host.resetClient();
+                        }
+                    }
+                }
+                DockerClientRegistry.getInstance().closeWithCredentials(credentialsId);
+            }
+        }
+    }
+}
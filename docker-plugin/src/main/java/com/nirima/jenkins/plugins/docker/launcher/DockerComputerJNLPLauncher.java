@@ -1,19 +1,23 @@
 package com.nirima.jenkins.plugins.docker.launcher;
 
-import com.github.dockerjava.api.DockerClient;
-import com.github.dockerjava.api.NotFoundException;
 import com.github.dockerjava.api.command.CreateContainerCmd;
-import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.AccessMode;
+import com.github.dockerjava.api.model.VolumesFrom;
 import com.nirima.jenkins.plugins.docker.DockerComputer;
+import com.nirima.jenkins.plugins.docker.DockerContainerLabels;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import com.nirima.jenkins.plugins.docker.DockerSlave;
 import com.nirima.jenkins.plugins.docker.DockerTemplate;
+import hudson.Util;
 import hudson.model.Descriptor;
 import hudson.model.TaskListener;
 import hudson.slaves.ComputerLauncher;
 import hudson.slaves.JNLPLauncher;
 import hudson.slaves.SlaveComputer;
-import hudson.util.TimeUnit2;
 import jenkins.model.Jenkins;
+import jenkins.slaves.JnlpSlaveAgentProtocol;
+import jenkins.util.Timer;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 import org.kohsuke.accmod.Restricted;
@@ -23,17 +27,27 @@ import org.kohsuke.stapler.DataBoundSetter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import shaded.com.google.common.annotations.Beta;
+import shaded.com.google.common.util.concurrent.FutureCallback;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JNLP launcher. Doesn't require open ports on docker host.
  * <p/>
  * Steps:
- * - runs container with nop command
- * - as launch action executes jnlp connection to master
+ * - runs container with init.sh as command and jnlp connection parameters as environment
+ * - the node is added before the container starts, so init.sh connects right away;
+ *   launch only waits for the connection
  *
  * @author Kanstantsin Shautsou
  */
@@ -68,95 +82,70 @@ public class DockerComputerJNLPLauncher extends DockerComputerLauncher {
         return user;
     }
 
+    /**
+     * The container connects by itself, its node must serve the jnlp file by then.
+     */
+    @Override
+    public boolean isSlaveAddedBeforeStart() {
+        return true;
+    }
+
     @Override
     public boolean isLaunchSupported() {
         return true;
     }
 
+    /**
+     * Nothing to run, the container got its configuration when it was created and connects by itself,
+     * see {@link #appendContainerConfig(DockerHost, DockerTemplate, CreateContainerCmd)}.
+     */
     @Override
     public void launch(SlaveComputer computer, TaskListener listener) throws IOException, InterruptedException {
-        final PrintStream logger = listener.getLogger();
         final DockerComputer dockerComputer = (DockerComputer) computer;
-        final String containerId = dockerComputer.getContainerId();
-        final String rootUrl = Jenkins.getInstance().getRootUrl();
-        final DockerClient connect = dockerComputer.getCloud().getClient();
-        final DockerTemplate dockerTemplate = dockerComputer.getNode().getDockerTemplate();
-
-        // exec jnlp connection in running container
-        // TODO implement PID 1 replacement
-
-//        String cdCmd = "cd " + dockerTemplate.getRemoteFs();
-//        String wgetSlaveCmd = "wget " + rootUrl + "jnlpJars/slave.jar -O slave.jar";
-//        String jnlpConnectCmd = "java -jar slave.jar "
-//                + "-jnlpUrl " + rootUrl + dockerComputer.getUrl() + "slave-agent.jnlp ";
-////                + "-secret " + dockerComputer.getJnlpMac();
-//
-//        String[] connectCmd = {
-//                "bash", "-c", cdCmd + " && " + wgetSlaveCmd + " && " + jnlpConnectCmd
-//        };
-
-        String startCmd =
-                "cat << EOF > /tmp/config.sh.tmp && cd /tmp && mv config.sh.tmp config.sh\n" +
-                        "JENKINS_URL=\"" + rootUrl + "\"\n" +
-                        "JENKINS_USER=\"" + getUser() + "\"\n" +
-                        "JENKINS_HOME=\"" + dockerTemplate.getRemoteFs() + "\"\n" +
-                        "COMPUTER_URL=\"" + dockerComputer.getUrl() + "\"\n" +
-                        "COMPUTER_SECRET=\"" + dockerComputer.getJnlpMac() + "\"\n" +
-                        "EOF" + "\n";
-
-        try {
-//            LOGGER.info("Creating jnlp connection command '{}' for '{}'", Arrays.toString(connectCmd), containerId);
-//            logger.println("Creating jnlp connection command '" + Arrays.toString(connectCmd) + "' for '" + containerId + "'");
-
-            final ExecCreateCmdResponse response = connect.execCreateCmd(containerId)
-                    .withTty()
-                    .withAttachStdin()
-                    .withAttachStderr()
-                    .withAttachStdout()
-//                    .withCmd(connectCmd)
-                    .withCmd("/bin/bash", "-cxe", startCmd.replace("$", "\\$"))
-                    .exec();
-
-            LOGGER.info("Starting connection command for {}", containerId);
-            logger.println("Starting connection command for " + containerId);
-
-            try (InputStream exec = connect
-                    .execStartCmd(response.getId())
-                    .withDetach()
-                    .withTty()
-                    .exec()
-            ) {
-                //nothing, just want to be closed
-            } catch (NotFoundException ex) {
-                listener.error("Can't execute command: " + ex.getMessage());
-                LOGGER.error("Can't execute jnlp connection command: '{}'", ex.getMessage());
-            }
-
-        } catch (Exception ex) {
-            listener.error("Can't execute command: " + ex.getMessage());
-            LOGGER.error("Can't execute jnlp connection command: '{}'", ex.getMessage());
-            throw ex;
-        }
 
-        LOGGER.info("Successfully executed jnlp connection for '{}'", containerId);
-        logger.println("Successfully executed jnlp connection for " + containerId);
+        // as with JNLPLauncher nothing needs to wait for the connection here
+        listener.getLogger().println("Waiting slave connection of " + dockerComputer.getContainerId() + "...");
+        awaitConnection(dockerComputer);
+    }
 
-        final long launchTime = System.currentTimeMillis();
-        while (!dockerComputer.isOnline() &&
-                TimeUnit2.SECONDS.toMillis(launchTimeout) > System.currentTimeMillis() - launchTime) {
-            logger.println("Waiting slave connection...");
-            Thread.sleep(1000);
-        }
+    /**
+     * Terminates the slave unless it connects within {@link #launchTimeout}, on the shared {@link Timer}.
+     */
+    private void awaitConnection(final DockerComputer dockerComputer) {
+        final String containerId = dockerComputer.getContainerId();
+        final ListenableFuture<Void> online = dockerComputer.whenOnline();
+
+        final ScheduledFuture<?> timeout = Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (online.isDone()) {
+                    return;
+                }
+                LOGGER.info("Launch timeout, terminating slave based on '{}'", containerId);
+                final DockerSlave node = dockerComputer.getNode();
+                if (node == null) {
+                    return;
+                }
+                try {
+                    node.terminate();
+                } catch (InterruptedException | IOException ex) {
+                    LOGGER.error("Failed to terminate slave based on '{}'", containerId, ex);
+                }
+            }
+        }, launchTimeout, TimeUnit.SECONDS);
 
-        if (!dockerComputer.isOnline()) {
-            LOGGER.info("Launch timeout, termintaing slave based on '{}'", containerId);
-            logger.println("Launch timeout, termintaing slave.");
-            dockerComputer.getNode().terminate();
-            throw new IOException("Can't connect slave to jenkins");
-        }
+        Futures.addCallback(online, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                timeout.cancel(false);
+                LOGGER.info("Launched slave '{}' based on '{}'", dockerComputer.getName(), containerId);
+            }
 
-        LOGGER.info("Launched slave '{}' based on '{}'", dockerComputer.getName(), containerId);
-        logger.println("Launched slave for " + containerId);
+            @Override
+            public void onFailure(Throwable t) {
+                // never fails
+            }
+        });
     }
 
     @Override
@@ -173,7 +162,6 @@ public class DockerComputerJNLPLauncher extends DockerComputerLauncher {
                 throw new IllegalStateException("Resource file 'init.sh' not found");
             }
 //            createContainerCmd.withCmd("/bin/sh"); // nop
-            // wait for params
             createContainerCmd.withCmd("/bin/bash",
                     "-cxe",
                     "cat << EOF >> /tmp/init.sh && chmod +x /tmp/init.sh && exec /tmp/init.sh\n" +
@@ -197,9 +185,47 @@ public class DockerComputerJNLPLauncher extends DockerComputerLauncher {
 
     }
 
+    /**
+     * Chooses the name of the slave node, labelled as {@link DockerContainerLabels#NODE}, and passes
+     * everything init.sh needs to connect as environment, so the container connects to its node,
+     * which is added before the container starts, see {@link #isSlaveAddedBeforeStart()}.
+     * Mounts slave.jar cached on the host, when it is, so the container doesn't download it.
+     */
     @Override
-    public boolean waitUp(String cloudId, DockerTemplate dockerTemplate, InspectContainerResponse ir) {
-        return super.waitUp(cloudId, dockerTemplate, ir);
+    public void appendContainerConfig(DockerHost host, DockerTemplate dockerTemplate,
+                                      CreateContainerCmd createContainerCmd) throws IOException {
+        appendContainerConfig(dockerTemplate, createContainerCmd);
+
+        final String nodeName = DockerContainerLabels.newNodeName(host.getCloud().getDisplayName());
+
+        final Map<String, String> labels = new HashMap<>();
+        if (createContainerCmd.getLabels() != null) {
+            labels.putAll(createContainerCmd.getLabels());
+        }
+        labels.put(DockerContainerLabels.NODE, nodeName);
+        createContainerCmd.withLabels(labels);
+
+        final List<String> env = new ArrayList<>();
+        if (createContainerCmd.getEnv() != null) {
+            env.addAll(Arrays.asList(createContainerCmd.getEnv()));
+        }
+        env.add("JENKINS_URL=" + Jenkins.getInstance().getRootUrl());
+        env.add("JENKINS_USER=" + Util.fixNull(getUser()));
+        env.add("JENKINS_HOME=" + dockerTemplate.getRemoteFs());
+        // as Computer.getUrl() and SlaveComputer.getJnlpMac() of the computer to be
+        env.add("COMPUTER_URL=computer/" + Util.rawEncode(nodeName) + "/");
+        env.add("COMPUTER_SECRET=" + JnlpSlaveAgentProtocol.SLAVE_SECRET.mac(nodeName));
+        createContainerCmd.withEnv(env.toArray(new String[env.size()]));
+
+        final String cache = host.getSlaveJarCache().getContainer(dockerTemplate.getDockerTemplateBase().getImage());
+        if (cache != null) {
+            final List<VolumesFrom> volumesFrom = new ArrayList<>();
+            if (createContainerCmd.getVolumesFrom() != null) {
+                volumesFrom.addAll(Arrays.asList(createContainerCmd.getVolumesFrom()));
+            }
+            volumesFrom.add(new VolumesFrom(cache, AccessMode.ro));
+            createContainerCmd.withVolumesFrom(volumesFrom.toArray(new VolumesFrom[volumesFrom.size()]));
+        }
     }
 
     @Override
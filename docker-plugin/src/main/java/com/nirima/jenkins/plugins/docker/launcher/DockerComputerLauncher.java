@@ -3,15 +3,26 @@ package com.nirima.jenkins.plugins.docker.launcher;
 
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.DockerCloud;
+import com.nirima.jenkins.plugins.docker.DockerHost;
 import com.nirima.jenkins.plugins.docker.DockerTemplate;
 import com.nirima.jenkins.plugins.docker.DockerTemplateBase;
 import hudson.model.TaskListener;
 import hudson.slaves.ComputerLauncher;
 import hudson.slaves.DelegatingComputerLauncher;
 import hudson.slaves.SlaveComputer;
+import org.kohsuke.stapler.DataBoundSetter;
 import shaded.com.google.common.annotations.Beta;
+import shaded.com.google.common.base.Function;
+import shaded.com.google.common.base.Throwables;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
@@ -22,8 +33,16 @@ import java.io.IOException;
  */
 @Beta
 public abstract class DockerComputerLauncher extends ComputerLauncher {
+    private static final Logger LOGGER = Logger.getLogger(DockerComputerLauncher.class.getName());
+
     protected ComputerLauncher launcher;
 
+    /**
+     * Absent in older configs, then only the launcher's own wait applies.
+     */
+    @CheckForNull
+    protected DockerReadiness readiness;
+
     /**
      * Return valid configured launcher that will be used for launching slave
      */
@@ -31,6 +50,15 @@ public abstract class DockerComputerLauncher extends ComputerLauncher {
                                                          DockerTemplate dockerTemplate,
                                                          InspectContainerResponse ir);
 
+    /**
+     * Same as {@link #getPreparedLauncher(String, DockerTemplate, InspectContainerResponse)}, for the
+     * container started on the host.
+     */
+    public ComputerLauncher getPreparedLauncher(DockerHost host, DockerTemplate dockerTemplate,
+                                                InspectContainerResponse ir) {
+        return getPreparedLauncher(host.getCloud().getDisplayName(), dockerTemplate, ir);
+    }
+
     /**
      * Contribute container parameters needed for launcher.
      * i.e. port for exposing, command to run, etc.
@@ -39,14 +67,94 @@ public abstract class DockerComputerLauncher extends ComputerLauncher {
                                                CreateContainerCmd createContainerCmd) throws IOException;
 
     /**
-     * Wait until slave is up and ready for connection.
+     * Same as {@link #appendContainerConfig(DockerTemplate, CreateContainerCmd)}, for launchers with options
+     * that depend on the host the container is created on.
+     */
+    public void appendContainerConfig(DockerHost host, DockerTemplate dockerTemplate,
+                                      CreateContainerCmd createContainerCmd) throws IOException {
+        appendContainerConfig(dockerTemplate, createContainerCmd);
+    }
+
+    /**
+     * Whether the slave has to be added to Jenkins before its container starts, for containers
+     * that connect to Jenkins by themselves as soon as they run.
+     */
+    public boolean isSlaveAddedBeforeStart() {
+        return false;
+    }
+
+    /**
+     * Wait until slave is up and ready for connection, as told by the {@link #getReadiness() readiness}.
      */
     public boolean waitUp(String cloudId, DockerTemplate dockerTemplate, InspectContainerResponse containerInspect) {
+        return waitUp(hostOf(cloudId, containerInspect), dockerTemplate, containerInspect);
+    }
+
+    /**
+     * Same as {@link #waitUp(String, DockerTemplate, InspectContainerResponse)}, for the container started on the host.
+     */
+    public boolean waitUp(DockerHost host, DockerTemplate dockerTemplate, InspectContainerResponse containerInspect) {
+        try {
+            return whenUp(host, dockerTemplate, containerInspect).get();
+        } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #waitUp(DockerHost, DockerTemplate, InspectContainerResponse)}, without holding a thread
+     * while the container comes up, where the readiness and the launcher can wait that way.
+     * Launchers that wait for more than the readiness chain it to this.
+     *
+     * @return future of false if the container didn't get ready in time
+     */
+    public ListenableFuture<Boolean> whenUp(DockerHost host, DockerTemplate dockerTemplate,
+                                            final InspectContainerResponse containerInspect) {
         if (!containerInspect.getState().isRunning()) {
-            throw new IllegalStateException("Container '" + containerInspect.getId() + "' is not running!");
+            return Futures.immediateFailedFuture(
+                    new IllegalStateException("Container '" + containerInspect.getId() + "' is not running!"));
+        }
+
+        final DockerReadiness readiness = this.readiness;
+        if (readiness == null) {
+            return Futures.immediateFuture(true);
         }
 
-        return true;
+        return Futures.transform(readiness.whenUp(host, containerInspect), new Function<Boolean, Boolean>() {
+            @Override
+            public Boolean apply(Boolean ready) {
+                if (!ready) {
+                    LOGGER.log(Level.WARNING, "Container {0} is not ready after {1} s ({2})", new Object[]{
+                            containerInspect.getId(), readiness.getTimeoutSeconds(), readiness.getDescriptor().getDisplayName()});
+                }
+                return ready;
+            }
+        });
+    }
+
+    /**
+     * @throws IllegalStateException if no available host of the cloud knows the container
+     */
+    protected static DockerHost hostOf(String cloudId, InspectContainerResponse containerInspect) {
+        final DockerHost host = DockerCloud.getCloudByName(cloudId).getHostOf(containerInspect.getId());
+        if (host == null) {
+            throw new IllegalStateException("Container '" + containerInspect.getId()
+                    + "' is on no available host of cloud '" + cloudId + "'");
+        }
+        return host;
+    }
+
+    @CheckForNull
+    public DockerReadiness getReadiness() {
+        return readiness;
+    }
+
+    @DataBoundSetter
+    public void setReadiness(DockerReadiness readiness) {
+        this.readiness = readiness;
     }
 
     public ComputerLauncher getLauncher() {
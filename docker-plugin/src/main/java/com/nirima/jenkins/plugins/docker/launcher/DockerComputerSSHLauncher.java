@@ -5,7 +5,7 @@ import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports;
-import com.nirima.jenkins.plugins.docker.DockerCloud;
+import com.nirima.jenkins.plugins.docker.DockerHost;
 import com.nirima.jenkins.plugins.docker.DockerTemplate;
 import com.nirima.jenkins.plugins.docker.DockerTemplateBase;
 import com.nirima.jenkins.plugins.docker.utils.PortUtils;
@@ -20,10 +20,13 @@ import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import shaded.com.google.common.annotations.Beta;
+import shaded.com.google.common.base.Functions;
 import shaded.com.google.common.base.Preconditions;
+import shaded.com.google.common.util.concurrent.AsyncFunction;
+import shaded.com.google.common.util.concurrent.FutureFallback;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
 
-import java.io.IOException;
-import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -35,6 +38,12 @@ import java.util.logging.Logger;
 @Beta
 public class DockerComputerSSHLauncher extends DockerComputerLauncher {
     private static final Logger LOGGER = Logger.getLogger(DockerComputerSSHLauncher.class.getName());
+
+    /**
+     * How long {@link #whenUp} waits for sshd, as long as the former ten port checks ten seconds apart.
+     */
+    private static final int WAIT_UP_SECONDS = 100;
+
     // store real UI configuration
     protected final SSHConnector sshConnector;
 
@@ -48,9 +57,14 @@ public class DockerComputerSSHLauncher extends DockerComputerLauncher {
     }
 
     public ComputerLauncher getPreparedLauncher(String cloudId, DockerTemplate dockerTemplate, InspectContainerResponse inspect) {
+        return getPreparedLauncher(hostOf(cloudId, inspect), dockerTemplate, inspect);
+    }
+
+    @Override
+    public ComputerLauncher getPreparedLauncher(DockerHost host, DockerTemplate dockerTemplate, InspectContainerResponse inspect) {
         final DockerComputerSSHLauncher prepLauncher = new DockerComputerSSHLauncher(null); // don't care, we need only launcher
 
-        prepLauncher.setLauncher(getSSHLauncher(cloudId, dockerTemplate, inspect));
+        prepLauncher.setLauncher(getSSHLauncher(host, dockerTemplate, inspect));
 
         return prepLauncher;
     }
@@ -71,29 +85,35 @@ public class DockerComputerSSHLauncher extends DockerComputerLauncher {
     }
 
     @Override
-    public boolean waitUp(String cloudId, DockerTemplate dockerTemplate, InspectContainerResponse containerInspect) {
-        super.waitUp(cloudId, dockerTemplate, containerInspect);
-
-        final PortUtils portUtils = getPortUtils(cloudId, dockerTemplate, containerInspect);
-        if (!portUtils.withEveryRetryWaitFor(10, TimeUnit.SECONDS)) {
-            return false;
-        }
-        try {
-            portUtils.bySshWithEveryRetryWaitFor(10, TimeUnit.SECONDS);
-        } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, "Can't connect to ssh", ex);
-            return false;
-        }
-
-        return true;
+    public ListenableFuture<Boolean> whenUp(final DockerHost host, DockerTemplate dockerTemplate,
+                                            final InspectContainerResponse containerInspect) {
+        return Futures.transform(super.whenUp(host, dockerTemplate, containerInspect),
+                new AsyncFunction<Boolean, Boolean>() {
+                    @Override
+                    public ListenableFuture<Boolean> apply(Boolean ready) {
+                        if (!ready) {
+                            return Futures.immediateFuture(false);
+                        }
+                        final ListenableFuture<Void> ssh = getPortUtils(host, containerInspect)
+                                .bySshWhenReady(WAIT_UP_SECONDS, TimeUnit.SECONDS);
+                        return Futures.withFallback(Futures.transform(ssh, Functions.constant(true)),
+                                new FutureFallback<Boolean>() {
+                                    @Override
+                                    public ListenableFuture<Boolean> create(Throwable t) {
+                                        LOGGER.log(Level.WARNING, "Can't connect to ssh", t);
+                                        return Futures.immediateFuture(false);
+                                    }
+                                });
+                    }
+                });
     }
 
-    private SSHLauncher getSSHLauncher(String cloudId, DockerTemplate template, InspectContainerResponse inspect) {
+    private SSHLauncher getSSHLauncher(DockerHost host, DockerTemplate template, InspectContainerResponse inspect) {
         Preconditions.checkNotNull(template);
         Preconditions.checkNotNull(inspect);
 
         try {
-            final PortUtils portUtils = getPortUtils(cloudId, template, inspect);
+            final PortUtils portUtils = getPortUtils(host, inspect);
             LOGGER.log(Level.INFO, "Creating slave SSH launcher for " + portUtils.host + ":" + portUtils.port);
             return new SSHLauncher(portUtils.host, portUtils.port, sshConnector.getCredentials(),
                     sshConnector.jvmOptions,
@@ -105,6 +125,10 @@ public class DockerComputerSSHLauncher extends DockerComputerLauncher {
     }
 
     public PortUtils getPortUtils(String cloudId, DockerTemplate dockerTemplate, InspectContainerResponse ir) {
+        return getPortUtils(hostOf(cloudId, ir), ir);
+    }
+
+    private PortUtils getPortUtils(DockerHost dockerHost, InspectContainerResponse ir) {
         // get exposed port
         ExposedPort sshPort = new ExposedPort(sshConnector.port);
         String host = null;
@@ -122,7 +146,7 @@ public class DockerComputerSSHLauncher extends DockerComputerLauncher {
 
         //get address, if docker on localhost, then use local?
         if (host == null || host.equals("0.0.0.0")) {
-            host = URI.create(DockerCloud.getCloudByName(cloudId).serverUrl).getHost();
+            host = dockerHost.getHostname();
         }
 
         return PortUtils.canConnect(host, port);
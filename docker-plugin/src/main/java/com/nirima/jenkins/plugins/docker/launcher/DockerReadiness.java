@@ -0,0 +1,78 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import hudson.model.Computer;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundSetter;
+import shaded.com.google.common.base.Throwables;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.ListeningExecutorService;
+import shaded.com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * How {@link DockerComputerLauncher#whenUp} tells that a started container is ready, in addition to
+ * what the launcher itself waits for.
+ */
+public abstract class DockerReadiness implements Describable<DockerReadiness> {
+
+    public static final int DEFAULT_TIMEOUT_SECONDS = 120;
+
+    private static final ListeningExecutorService REMOTING_POOL =
+            MoreExecutors.listeningDecorator(Computer.threadPoolForRemoting);
+
+    private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds > 0 ? timeoutSeconds : DEFAULT_TIMEOUT_SECONDS;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Blocks until the container is ready, at most {@link #getTimeoutSeconds()}.
+     *
+     * @param host host the container runs on
+     * @return false if it didn't get ready in time
+     */
+    public abstract boolean waitUp(DockerHost host, InspectContainerResponse containerInspect)
+            throws InterruptedException;
+
+    /**
+     * Same as {@link #waitUp}, for readiness checks that can wait without holding a thread.
+     * By default {@link #waitUp} runs on {@link Computer#threadPoolForRemoting}.
+     *
+     * @return future of false if it didn't get ready in time
+     */
+    public ListenableFuture<Boolean> whenUp(final DockerHost host, final InspectContainerResponse containerInspect) {
+        return REMOTING_POOL.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return waitUp(host, containerInspect);
+            }
+        });
+    }
+
+    /**
+     * Blocks for the outcome of {@link #whenUp}, for readiness checks that implement {@link #waitUp} with it.
+     */
+    protected static boolean await(ListenableFuture<Boolean> up) throws InterruptedException {
+        try {
+            return up.get();
+        } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
+    public Descriptor<DockerReadiness> getDescriptor() {
+        return Jenkins.getInstance().getDescriptorOrDie(getClass());
+    }
+}
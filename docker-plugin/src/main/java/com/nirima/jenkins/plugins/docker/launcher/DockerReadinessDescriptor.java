@@ -0,0 +1,11 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import hudson.DescriptorExtensionList;
+import hudson.model.Descriptor;
+import jenkins.model.Jenkins;
+
+public abstract class DockerReadinessDescriptor extends Descriptor<DockerReadiness> {
+    public static DescriptorExtensionList<DockerReadiness, DockerReadinessDescriptor> all() {
+        return Jenkins.getInstance().<DockerReadiness, DockerReadinessDescriptor>getDescriptorList(DockerReadiness.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Event;
+import com.nirima.jenkins.plugins.docker.DockerContainerInventory;
+import com.nirima.jenkins.plugins.docker.DockerEventStream;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import hudson.Extension;
+import jenkins.util.Timer;
+import org.kohsuke.stapler.DataBoundConstructor;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.MoreExecutors;
+import shaded.com.google.common.util.concurrent.SettableFuture;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ready once docker reports the container healthy, as judged by the HEALTHCHECK of its image.
+ * Waits for the health event instead of inspecting the container repeatedly.
+ */
+public class HealthCheckReadiness extends DockerReadiness {
+
+    @DataBoundConstructor
+    public HealthCheckReadiness() {
+    }
+
+    @Override
+    public boolean waitUp(DockerHost host, InspectContainerResponse containerInspect) throws InterruptedException {
+        return await(whenUp(host, containerInspect));
+    }
+
+    @Override
+    public ListenableFuture<Boolean> whenUp(DockerHost host, InspectContainerResponse containerInspect) {
+        final String containerId = containerInspect.getId();
+        final SettableFuture<Boolean> healthy = SettableFuture.create();
+
+        final DockerEventStream.Listener listener = new DockerEventStream.Listener() {
+            @Override
+            public void onEvent(Event event) {
+                if (!containerId.equals(event.getId())) {
+                    return;
+                }
+                if (DockerContainerInventory.HEALTHY.equals(event.getStatus())) {
+                    healthy.set(true);
+                } else if ("die".equals(event.getStatus())) {
+                    healthy.set(false);
+                }
+            }
+
+            @Override
+            public void onStreamLost() {
+                // the inventory knows after the resync below
+            }
+        };
+
+        final DockerEventStream eventStream = host.getEventStream();
+        eventStream.addListener(listener);
+        final ScheduledFuture<?> timeout = Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                healthy.set(false);
+            }
+        }, getTimeoutSeconds(), TimeUnit.SECONDS);
+        healthy.addListener(new Runnable() {
+            @Override
+            public void run() {
+                eventStream.removeListener(listener);
+                timeout.cancel(false);
+            }
+        }, MoreExecutors.directExecutor());
+
+        try {
+            eventStream.ensureConnected();
+            // it may have turned healthy before we listened
+            if (host.getContainerInventory().isHealthy(containerId)) {
+                healthy.set(true);
+            }
+        } catch (RuntimeException ex) {
+            healthy.setException(ex);
+        }
+        return healthy;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends DockerReadinessDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "Container health check";
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import hudson.Extension;
+import org.kohsuke.stapler.DataBoundConstructor;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Only what the launcher waits for: sshd for ssh, a running container for JNLP.
+ */
+public class LauncherReadiness extends DockerReadiness {
+
+    @DataBoundConstructor
+    public LauncherReadiness() {
+    }
+
+    @Override
+    public boolean waitUp(DockerHost host, InspectContainerResponse containerInspect) {
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<Boolean> whenUp(DockerHost host, InspectContainerResponse containerInspect) {
+        return Futures.immediateFuture(true);
+    }
+
+    @Extension(ordinal = 100)
+    public static final class DescriptorImpl extends DockerReadinessDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "Launcher default";
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import hudson.Extension;
+import hudson.util.FormValidation;
+import jenkins.util.Timer;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Ready once a line of the container's output matches a pattern, read from the followed log
+ * as the container writes it.
+ */
+public class LogReadiness extends DockerReadiness {
+    private static final Logger LOGGER = Logger.getLogger(LogReadiness.class.getName());
+
+    private final String pattern;
+
+    private transient Pattern compiled;
+
+    @DataBoundConstructor
+    public LogReadiness(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public boolean waitUp(DockerHost host, InspectContainerResponse containerInspect) throws InterruptedException {
+        if (compiled == null) {
+            compiled = Pattern.compile(pattern);
+        }
+
+        try (DockerClientRegistry.Lease lease = host.leaseClient()) {
+            return waitForLine(lease.getClient(), containerInspect);
+        }
+    }
+
+    private boolean waitForLine(DockerClient client, InspectContainerResponse containerInspect)
+            throws InterruptedException {
+        final InputStream logs = client.logContainerCmd(containerInspect.getId())
+                .withStdOut()
+                .withStdErr()
+                .withFollowStream()
+                .exec();
+
+        // the read blocks until the container writes, closing the stream ends it
+        final ScheduledFuture<?> timeout = Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                closeQuietly(logs);
+            }
+        }, getTimeoutSeconds(), TimeUnit.SECONDS);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(logs, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // find, output without tty is framed with a binary header
+                if (compiled.matcher(line).find()) {
+                    return true;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return false;
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Log of " + containerInspect.getId() + " ended", ex);
+            return false;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ex) {
+            // closing anyway
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends DockerReadinessDescriptor {
+        public FormValidation doCheckPattern(@QueryParameter String value) {
+            try {
+                Pattern.compile(value);
+                return FormValidation.ok();
+            } catch (PatternSyntaxException ex) {
+                return FormValidation.error(ex.getDescription());
+            }
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Container log line";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Ports;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import com.nirima.jenkins.plugins.docker.utils.ReadinessProber;
+import hudson.Extension;
+import org.kohsuke.stapler.DataBoundConstructor;
+import shaded.com.google.common.base.Functions;
+import shaded.com.google.common.util.concurrent.FutureFallback;
+import shaded.com.google.common.util.concurrent.Futures;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Ready once a published port of the container accepts connections and, if configured, sends a banner.
+ * Probed by the shared {@link ReadinessProber}.
+ */
+public class TcpReadiness extends DockerReadiness {
+    private static final Logger LOGGER = Logger.getLogger(TcpReadiness.class.getName());
+
+    private final int port;
+
+    private final String banner;
+
+    @DataBoundConstructor
+    public TcpReadiness(int port, String banner) {
+        this.port = port;
+        this.banner = banner;
+    }
+
+    /**
+     * @return port inside the container
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public String getBanner() {
+        return banner;
+    }
+
+    @Override
+    public boolean waitUp(DockerHost host, InspectContainerResponse containerInspect) throws InterruptedException {
+        return await(whenUp(host, containerInspect));
+    }
+
+    @Override
+    public ListenableFuture<Boolean> whenUp(DockerHost host, final InspectContainerResponse containerInspect) {
+        final Ports.Binding[] bindings = containerInspect.getNetworkSettings().getPorts().getBindings()
+                .get(new ExposedPort(port));
+        if (bindings == null || bindings.length == 0) {
+            LOGGER.log(Level.WARNING, "Port {0} of container {1} is not published",
+                    new Object[]{port, containerInspect.getId()});
+            return Futures.immediateFuture(false);
+        }
+
+        final Ports.Binding binding = bindings[0];
+        final String hostIp = binding.getHostIp() == null || binding.getHostIp().equals("0.0.0.0") ?
+                host.getHostname() : binding.getHostIp();
+
+        final ListenableFuture<Void> probe = ReadinessProber.getInstance()
+                .probe(hostIp, binding.getHostPort(), isBlank(banner) ? null : banner,
+                        getTimeoutSeconds(), TimeUnit.SECONDS);
+        return Futures.withFallback(Futures.transform(probe, Functions.constant(true)),
+                new FutureFallback<Boolean>() {
+                    @Override
+                    public ListenableFuture<Boolean> create(Throwable t) {
+                        LOGGER.log(Level.WARNING, "Port {0} of container {1} is not ready: {2}",
+                                new Object[]{port, containerInspect.getId(), t.getMessage()});
+                        return Futures.immediateFuture(false);
+                    }
+                });
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends DockerReadinessDescriptor {
+        @Override
+        public String getDisplayName() {
+            return "TCP port";
+        }
+    }
+}
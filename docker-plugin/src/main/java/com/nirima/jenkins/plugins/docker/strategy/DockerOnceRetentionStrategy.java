@@ -1,5 +1,6 @@
 package com.nirima.jenkins.plugins.docker.strategy;
 
+import com.nirima.jenkins.plugins.docker.DockerSlave;
 import hudson.model.*;
 import hudson.slaves.*;
 import hudson.util.TimeUnit2;
@@ -102,12 +103,15 @@ public class DockerOnceRetentionStrategy extends CloudRetentionStrategy implemen
         Computer.threadPoolForRemoting.submit(new Runnable() {
             @Override
             public void run() {
+                // DockerSlave takes the queue lock for the removal of the node only,
+                // other nodes still need it held around terminate()
+                final AbstractCloudSlave node = c.getNode();
                 final Jenkins jenkins = Jenkins.getInstance();
                 // TODO once the baseline is 1.592+ switch to Queue.withLock
-                Object queue = jenkins == null ? DockerOnceRetentionStrategy.this : jenkins.getQueue();
-                synchronized (queue) {
+                Object lock = node instanceof DockerSlave || jenkins == null ?
+                        DockerOnceRetentionStrategy.this : jenkins.getQueue();
+                synchronized (lock) {
                     try {
-                        AbstractCloudSlave node = c.getNode();
                         if (node != null) {
                             node.terminate();
                         }
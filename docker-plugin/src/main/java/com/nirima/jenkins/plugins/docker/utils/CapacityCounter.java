@@ -0,0 +1,96 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free count of reservations in flight, in total and per key, checked against caps
+ * with compare-and-set so concurrent callers can't overshoot them.
+ *
+ * @param <K> what reservations are counted by, i.e. an image
+ */
+public class CapacityCounter<K> {
+
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final ConcurrentHashMap<K, AtomicInteger> perKey = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves one slot if both caps allow it.
+     *
+     * @param key         what to reserve for
+     * @param usedTotal   slots used outside of this counter, over all keys
+     * @param totalCap    max total slots
+     * @param usedForKey  slots used outside of this counter for the key
+     * @param keyCap      max slots for the key, 0 for unlimited
+     * @return true if reserved, then {@link #release} must follow
+     */
+    public boolean tryReserve(K key, int usedTotal, int totalCap, int usedForKey, int keyCap) {
+        while (true) {
+            int current = total.get();
+            if ((long) usedTotal + current >= totalCap) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        final AtomicInteger counter = counter(key);
+        while (true) {
+            int current = counter.get();
+            if (keyCap != 0 && (long) usedForKey + current >= keyCap) {
+                total.decrementAndGet();
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(K key) {
+        final AtomicInteger counter = perKey.get(key);
+        if (counter == null) {
+            return;
+        }
+
+        while (true) {
+            int current = counter.get();
+            if (current <= 0) {
+                return; // released more than reserved
+            }
+            if (counter.compareAndSet(current, current - 1)) {
+                break;
+            }
+        }
+        total.decrementAndGet();
+    }
+
+    /**
+     * @return reservations in flight over all keys
+     */
+    public int get() {
+        return total.get();
+    }
+
+    /**
+     * @return reservations in flight for the key
+     */
+    public int get(K key) {
+        AtomicInteger counter = perKey.get(key);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private AtomicInteger counter(K key) {
+        AtomicInteger counter = perKey.get(key);
+        if (counter == null) {
+            AtomicInteger created = new AtomicInteger();
+            counter = perKey.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+}
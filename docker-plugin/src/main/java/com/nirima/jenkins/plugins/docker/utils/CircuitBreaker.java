@@ -0,0 +1,148 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the outcome of recent calls to an endpoint and opens when too many of them
+ * failed or were slow, so callers stop waiting out timeouts on a hung endpoint.
+ * <p/>
+ * While open, {@link #allowsCalls()} is false. After the open period one trial call is let
+ * through (half open): if it succeeds the breaker closes, else it opens again for twice as long,
+ * up to {@link #MAX_OPEN_MILLIS}. Until the trial is recorded other callers are refused; a trial
+ * that is not recorded within the last open period is given up and the next caller makes one.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Calls the error rate is computed over.
+     */
+    public static final int WINDOW = 20;
+
+    /**
+     * Calls in the window before the breaker may open.
+     */
+    public static final int MIN_CALLS = 5;
+
+    public static final long MIN_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(15);
+
+    public static final long MAX_OPEN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final double maxFailureRate;
+
+    private final long slowCallMillis;
+
+    // window of recent outcomes, true for failed or slow
+    private final boolean[] failures = new boolean[WINDOW];
+    private int next;
+    private int calls;
+    private int failedInWindow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long openMillis = MIN_OPEN_MILLIS;
+
+    /**
+     * When the trial call of the half open breaker was let through, 0 if none is in flight.
+     */
+    private long trialAt;
+
+    /**
+     * @param maxFailureRate share of failed or slow calls, 0 to 1, at which to open
+     * @param slowCallMillis calls taking longer count as failed, 0 to not look at latency
+     */
+    public CircuitBreaker(double maxFailureRate, long slowCallMillis) {
+        this.maxFailureRate = maxFailureRate;
+        this.slowCallMillis = slowCallMillis;
+    }
+
+    /**
+     * @return false while open or while the trial call is in flight, true when closed or to the caller
+     * that makes the trial call, which is expected to {@link #record} it
+     */
+    public synchronized boolean allowsCalls() {
+        final long now = now();
+        if (state == State.OPEN && now - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialAt = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialAt != 0 && now - trialAt < openMillis) {
+                return false;
+            }
+            trialAt = now;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * @param failed true if the call failed in a way that says the endpoint is unhealthy
+     * @param millis how long the call took
+     */
+    public synchronized void record(boolean failed, long millis) {
+        final boolean bad = failed || (slowCallMillis > 0 && millis > slowCallMillis);
+
+        if (state == State.HALF_OPEN) {
+            if (bad) {
+                open(Math.min(openMillis * 2, MAX_OPEN_MILLIS));
+            } else {
+                close();
+            }
+            return;
+        }
+
+        if (state == State.OPEN) {
+            // a call that started before the breaker opened
+            return;
+        }
+
+        if (calls == WINDOW && failures[next]) {
+            failedInWindow--;
+        }
+        failures[next] = bad;
+        next = (next + 1) % WINDOW;
+        calls = Math.min(calls + 1, WINDOW);
+        if (bad) {
+            failedInWindow++;
+        }
+
+        if (calls >= MIN_CALLS && failedInWindow >= maxFailureRate * calls) {
+            open(MIN_OPEN_MILLIS);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return millis until a trial call is let through, 0 unless open
+     */
+    public synchronized long getRemainingOpenMillis() {
+        return state == State.OPEN ? Math.max(openMillis - (now() - openedAt), 0) : 0;
+    }
+
+    private void open(long millis) {
+        state = State.OPEN;
+        trialAt = 0;
+        openedAt = now();
+        openMillis = millis;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialAt = 0;
+        openMillis = MIN_OPEN_MILLIS;
+        calls = 0;
+        failedInWindow = 0;
+        next = 0;
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+}
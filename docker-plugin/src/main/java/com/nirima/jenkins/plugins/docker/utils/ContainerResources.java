@@ -0,0 +1,86 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+/**
+ * Memory and cpu shares of a container or a docker host, 0 meaning none or unlimited.
+ * <p/>
+ * Cpu shares of a host follow the docker convention of 1024 shares per cpu.
+ */
+public final class ContainerResources {
+
+    public static final ContainerResources NONE = new ContainerResources(0, 0);
+
+    public static final long SHARES_PER_CPU = 1024;
+
+    private final long memoryBytes;
+
+    private final long cpuShares;
+
+    public ContainerResources(long memoryBytes, long cpuShares) {
+        this.memoryBytes = Math.max(memoryBytes, 0);
+        this.cpuShares = Math.max(cpuShares, 0);
+    }
+
+    /**
+     * @param memoryMB  memory limit in MB as configured on templates, may be null
+     * @param cpuShares cpu shares as configured on templates, may be null
+     */
+    public static ContainerResources of(Integer memoryMB, Integer cpuShares) {
+        return new ContainerResources(
+                memoryMB == null ? 0 : (long) memoryMB * 1024 * 1024,
+                cpuShares == null ? 0 : cpuShares);
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getCpuShares() {
+        return cpuShares;
+    }
+
+    public boolean isNone() {
+        return memoryBytes == 0 && cpuShares == 0;
+    }
+
+    public ContainerResources plus(ContainerResources other) {
+        return new ContainerResources(memoryBytes + other.memoryBytes, cpuShares + other.cpuShares);
+    }
+
+    /**
+     * For usage only: a dimension that drops below 0 is 0, which for a capacity would mean unlimited.
+     */
+    public ContainerResources minus(ContainerResources other) {
+        return new ContainerResources(memoryBytes - other.memoryBytes, cpuShares - other.cpuShares);
+    }
+
+    public ContainerResources times(int count) {
+        return new ContainerResources(memoryBytes * count, cpuShares * count);
+    }
+
+    /**
+     * @param capacity capacity to fit in, a 0 dimension of it is unlimited
+     */
+    public boolean fitsIn(ContainerResources capacity) {
+        return (capacity.memoryBytes == 0 || memoryBytes <= capacity.memoryBytes)
+                && (capacity.cpuShares == 0 || cpuShares <= capacity.cpuShares);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ContainerResources that = (ContainerResources) o;
+        return memoryBytes == that.memoryBytes && cpuShares == that.cpuShares;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (memoryBytes ^ (memoryBytes >>> 32)) + (int) (cpuShares ^ (cpuShares >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return (memoryBytes / 1024 / 1024) + " MB, " + cpuShares + " cpu shares";
+    }
+}
@@ -0,0 +1,199 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Consumes the response of {@code pullImageCmd} with a large buffer and parses the
+ * JSON progress objects as they arrive, without holding the whole response.
+ * <p/>
+ * Reports finished layers and overall throughput, and fails on the daemon's error object
+ * (a pull that went wrong still answers 200 and only says so inside the stream).
+ */
+public class ImagePullProgress {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImagePullProgress.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String imageName;
+
+    @CheckForNull
+    private final PrintStream logger;
+
+    /**
+     * Downloaded bytes per layer id, in order of appearance.
+     */
+    private final Map<String, Long> layerBytes = new LinkedHashMap<>();
+
+    private long startTime;
+    private long endTime;
+    private int messages;
+
+    /**
+     * @param imageName image being pulled, for messages
+     * @param logger    build log to report to, if any
+     */
+    public ImagePullProgress(String imageName, @CheckForNull PrintStream logger) {
+        this.imageName = imageName;
+        this.logger = logger;
+    }
+
+    /**
+     * Reads the stream to its end and closes it.
+     *
+     * @throws IOException on read failure or if the daemon reported a pull error
+     */
+    public ImagePullProgress consume(InputStream stream) throws IOException {
+        startTime = System.currentTimeMillis();
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final ByteArrayOutputStream object = new ByteArrayOutputStream(1024);
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        try (InputStream in = stream) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                int objectStart = depth > 0 ? 0 : -1;
+
+                for (int i = 0; i < read; i++) {
+                    final byte b = buffer[i];
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = depth > 0;
+                    } else if (b == '{') {
+                        if (depth++ == 0) {
+                            objectStart = i;
+                        }
+                    } else if (b == '}' && depth > 0) {
+                        if (--depth == 0) {
+                            object.write(buffer, objectStart, i + 1 - objectStart);
+                            onMessage(new String(object.toByteArray(), StandardCharsets.UTF_8));
+                            object.reset();
+                            objectStart = -1;
+                        }
+                    }
+                }
+
+                // keep the unfinished tail for the next read
+                if (depth > 0 && objectStart >= 0) {
+                    object.write(buffer, objectStart, read - objectStart);
+                }
+            }
+        } finally {
+            endTime = System.currentTimeMillis();
+        }
+
+        final String summary = String.format("Pulled image '%s': %d layer(s), %d bytes in %d ms (%d KiB/s)",
+                imageName, layerBytes.size(), getBytes(), getDurationMillis(), getBytesPerSecond() / 1024);
+        LOGGER.info(summary);
+        if (logger != null) {
+            logger.println(summary);
+        }
+
+        return this;
+    }
+
+    private void onMessage(String json) throws IOException {
+        messages++;
+
+        final JSONObject message;
+        try {
+            message = JSONObject.fromObject(json);
+        } catch (JSONException ex) {
+            LOGGER.debug("Skipping unparsable pull progress '{}'", json);
+            return;
+        }
+
+        if (message.has("error")) {
+            final JSONObject errorDetail = message.optJSONObject("errorDetail");
+            final String error = errorDetail != null && errorDetail.has("message") ?
+                    errorDetail.getString("message") : message.getString("error");
+            if (logger != null) {
+                logger.println("Failed to pull image '" + imageName + "': " + error);
+            }
+            throw new IOException("Failed to pull image '" + imageName + "': " + error);
+        }
+
+        final String id = message.optString("id", null);
+        final String status = message.optString("status", "");
+        if (id == null) {
+            // overall status lines: "Pulling repository ...", "Status: Downloaded newer image ..."
+            report(status);
+            return;
+        }
+
+        final JSONObject progressDetail = message.optJSONObject("progressDetail");
+        if (progressDetail != null && progressDetail.has("current") && status.startsWith("Downloading")) {
+            layerBytes.put(id, progressDetail.getLong("current"));
+        } else if (!layerBytes.containsKey(id)) {
+            layerBytes.put(id, 0L);
+        }
+
+        if ("Download complete".equals(status) || "Pull complete".equals(status)
+                || "Already exists".equals(status)) {
+            report(id + ": " + status + " (" + layerBytes.get(id) + " bytes)");
+        }
+    }
+
+    private void report(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("{}: {}", imageName, line);
+        if (logger != null) {
+            logger.println(line);
+        }
+    }
+
+    /**
+     * @return downloaded bytes per layer id
+     */
+    public Map<String, Long> getLayerBytes() {
+        return Collections.unmodifiableMap(layerBytes);
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (long layer : layerBytes.values()) {
+            bytes += layer;
+        }
+        return bytes;
+    }
+
+    public long getDurationMillis() {
+        return endTime - startTime;
+    }
+
+    public long getBytesPerSecond() {
+        final long duration = getDurationMillis();
+        return duration <= 0 ? 0 : getBytes() * 1000 / duration;
+    }
+
+    /**
+     * @return number of progress objects received
+     */
+    public int getMessages() {
+        return messages;
+    }
+}
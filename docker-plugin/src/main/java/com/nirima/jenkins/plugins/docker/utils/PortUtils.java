@@ -3,6 +3,7 @@ package com.nirima.jenkins.plugins.docker.utils;
 import com.trilead.ssh2.Connection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 import java.net.Socket;
@@ -100,6 +101,16 @@ public class PortUtils {
         }
     }
 
+    /**
+     * Waits for sshd on host:port without blocking a thread, see {@link ReadinessProber}.
+     * Ready as soon as the ssh identification arrives, retries start within milliseconds.
+     *
+     * @return future done once sshd answers, failed if it doesn't in time
+     */
+    public ListenableFuture<Void> bySshWhenReady(long timeout, TimeUnit units) {
+        return ReadinessProber.getInstance().probe(host, port, "SSH-", timeout, units);
+    }
+
     /**
      * Blocks current thread for {@code time} of {@code units}
      *
@@ -0,0 +1,286 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+import shaded.com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for ports of many containers to become ready on a single thread, with non-blocking connects
+ * on one {@link Selector}.
+ * <p/>
+ * A port is ready once a connection is accepted and, if a banner is expected, the server sent it.
+ * The banner matters behind docker's userland proxy, which accepts connections before anything
+ * listens in the container. Failed attempts are retried after {@link #MIN_DELAY_MILLIS}, doubling
+ * up to {@link #MAX_DELAY_MILLIS}, each delay with up to half of it as jitter so containers started
+ * together don't retry together. Probing stops once the future of the probe is cancelled.
+ */
+public class ReadinessProber {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadinessProber.class);
+
+    public static final long MIN_DELAY_MILLIS = 10;
+
+    public static final long MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    /**
+     * Longest a single connect or banner read may take before it is given up and retried.
+     */
+    public static final long ATTEMPT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    private static final ReadinessProber INSTANCE = new ReadinessProber();
+
+    private final class Probe {
+        final InetSocketAddress address;
+        @Nullable
+        final byte[] banner;
+        final long deadline;
+        final SettableFuture<Void> future = SettableFuture.create();
+
+        long delay = MIN_DELAY_MILLIS;
+        long nextAttemptAt;
+        long attemptDeadline;
+        int attempts;
+        SocketChannel channel;
+        ByteBuffer received;
+
+        Probe(InetSocketAddress address, @Nullable byte[] banner, long deadline) {
+            this.address = address;
+            this.banner = banner;
+            this.deadline = deadline;
+        }
+
+        void connect(long now) {
+            if (future.isCancelled()) {
+                return;
+            }
+            attempts++;
+            attemptDeadline = now + ATTEMPT_TIMEOUT_MILLIS;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (channel.connect(address)) {
+                    connected();
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException | UnresolvedAddressException ex) {
+                retry(now);
+            }
+        }
+
+        void connected() throws IOException {
+            if (banner == null) {
+                ready();
+                return;
+            }
+            received = ByteBuffer.allocate(banner.length);
+            final SelectionKey key = channel.keyFor(selector);
+            if (key == null) {
+                channel.register(selector, SelectionKey.OP_READ, this);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void ready() {
+            close();
+            LOGGER.debug("{} is ready after {} attempt(s)", address, attempts);
+            future.set(null);
+        }
+
+        /**
+         * @return true once the banner is complete
+         */
+        boolean read() throws IOException {
+            if (channel.read(received) < 0) {
+                throw new IOException("Connection closed before the banner arrived");
+            }
+            if (received.hasRemaining()) {
+                return false;
+            }
+            for (int i = 0; i < banner.length; i++) {
+                if (received.get(i) != banner[i]) {
+                    throw new IOException("Unexpected banner");
+                }
+            }
+            return true;
+        }
+
+        void retry(long now) {
+            close();
+            if (future.isCancelled()) {
+                // nobody waits anymore, i.e. the node is not provisioned after all
+                return;
+            }
+            if (now >= deadline) {
+                expire();
+                return;
+            }
+            final long jitter = ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            nextAttemptAt = Math.min(now + delay + jitter, deadline);
+            delay = Math.min(delay * 2, MAX_DELAY_MILLIS);
+            waiting.add(this);
+        }
+
+        void expire() {
+            close();
+            future.setException(new TimeoutException(address + " is not ready after " + attempts + " attempt(s)"));
+        }
+
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    // closing anyway
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Probe> submitted = new ConcurrentLinkedQueue<>();
+
+    // owned by the probing thread
+    private final PriorityQueue<Probe> waiting = new PriorityQueue<>(16, new Comparator<Probe>() {
+        @Override
+        public int compare(Probe o1, Probe o2) {
+            return Long.compare(o1.nextAttemptAt, o2.nextAttemptAt);
+        }
+    });
+
+    private Selector selector; // guarded by this until started
+
+    private Thread thread; // guarded by this
+
+    public static ReadinessProber getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param banner  what the server sends first once it is ready, e.g. "SSH-", or null if accepting
+     *                connections is enough
+     * @param timeout how long to keep trying
+     * @return future done once the port is ready, failed with a {@link TimeoutException} if it isn't in time
+     */
+    public ListenableFuture<Void> probe(String host, int port, @Nullable String banner, long timeout, TimeUnit unit) {
+        final Probe probe = new Probe(new InetSocketAddress(host, port),
+                banner == null ? null : banner.getBytes(StandardCharsets.US_ASCII),
+                System.currentTimeMillis() + unit.toMillis(timeout));
+        submitted.add(probe);
+        try {
+            ensureStarted().wakeup();
+        } catch (IOException ex) {
+            submitted.remove(probe);
+            probe.future.setException(ex);
+        }
+        return probe.future;
+    }
+
+    private synchronized Selector ensureStarted() throws IOException {
+        if (thread == null) {
+            selector = Selector.open();
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    loop();
+                }
+            }, "Docker readiness prober");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return selector;
+    }
+
+    private void loop() {
+        while (true) {
+            try {
+                long now = System.currentTimeMillis();
+
+                Probe probe;
+                while ((probe = submitted.poll()) != null) {
+                    probe.connect(now);
+                }
+                while ((probe = waiting.peek()) != null && probe.nextAttemptAt <= now) {
+                    waiting.poll();
+                    probe.connect(now);
+                }
+
+                selector.select(selectTimeout(now));
+                now = System.currentTimeMillis();
+
+                final Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    final SelectionKey key = selected.next();
+                    selected.remove();
+                    handle(key, now);
+                }
+
+                expireAttempts(now);
+            } catch (Exception ex) {
+                // keep probing the others
+                LOGGER.warn("Readiness probing failed", ex);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key, long now) {
+        final Probe probe = (Probe) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                probe.channel.finishConnect();
+                probe.connected();
+            } else if (key.isReadable() && probe.read()) {
+                probe.ready();
+            }
+        } catch (IOException ex) {
+            LOGGER.trace("{} is not ready: {}", probe.address, ex.getMessage());
+            probe.retry(now);
+        }
+    }
+
+    /**
+     * Retries connects and reads that hang, and fails probes past their deadline.
+     */
+    private void expireAttempts(long now) {
+        final List<Probe> overdue = new ArrayList<>();
+        for (SelectionKey key : selector.keys()) {
+            final Probe probe = (Probe) key.attachment();
+            if (key.isValid() && probe.channel != null && now >= probe.attemptDeadline) {
+                overdue.add(probe);
+            }
+        }
+        for (Probe probe : overdue) {
+            probe.retry(now);
+        }
+    }
+
+    private long selectTimeout(long now) {
+        long timeout = ATTEMPT_TIMEOUT_MILLIS;
+        final Probe next = waiting.peek();
+        if (next != null) {
+            timeout = Math.min(timeout, next.nextAttemptAt - now);
+        }
+        // 0 would block until woken up
+        return Math.max(timeout, 1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free sum of {@link ContainerResources} reserved in flight, checked against a capacity
+ * with compare-and-set like {@link CapacityCounter}.
+ */
+public class ResourceCounter {
+
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    private final AtomicLong cpuShares = new AtomicLong();
+
+    /**
+     * @param used     resources used outside of this counter
+     * @param capacity capacity, a 0 dimension is unlimited
+     * @param amount   resources to reserve
+     * @return true if reserved, then {@link #release} of the same amount must follow
+     */
+    public boolean tryReserve(ContainerResources used, ContainerResources capacity, ContainerResources amount) {
+        if (!tryAdd(memoryBytes, used.getMemoryBytes(), capacity.getMemoryBytes(), amount.getMemoryBytes())) {
+            return false;
+        }
+        if (!tryAdd(cpuShares, used.getCpuShares(), capacity.getCpuShares(), amount.getCpuShares())) {
+            memoryBytes.addAndGet(-amount.getMemoryBytes());
+            return false;
+        }
+        return true;
+    }
+
+    public void release(ContainerResources amount) {
+        memoryBytes.addAndGet(-amount.getMemoryBytes());
+        cpuShares.addAndGet(-amount.getCpuShares());
+    }
+
+    /**
+     * @return resources reserved in flight
+     */
+    public ContainerResources get() {
+        return new ContainerResources(memoryBytes.get(), cpuShares.get());
+    }
+
+    private static boolean tryAdd(AtomicLong counter, long used, long capacity, long amount) {
+        while (true) {
+            long current = counter.get();
+            if (capacity != 0 && amount != 0 && used + current + amount > capacity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + amount)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs at most one call per key at a time. Callers arriving while a call for
+ * the same key is in flight wait for it and get its result instead of running their own.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @return result of {@code callable}, or of the call for the same key that was already running
+     * @throws Exception whatever the call threw
+     */
+    public V execute(K key, Callable<V> callable) throws Exception {
+        FutureTask<V> task = new FutureTask<>(callable);
+        FutureTask<V> running = inFlight.putIfAbsent(key, task);
+
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return true if a call for the key is running right now
+     */
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+}
@@ -55,6 +55,18 @@ f.advanced(title: _("Experimental Options"), align: "left") {
     f.entry(title: _("# of executors"), field: "numExecutors") {
         f.number(default: "1")
     }
+
+    f.entry(title: _("Warm pool size"), field: "warmPoolSize") {
+        f.number(default: "0")
+    }
+
+    f.entry(title: _("Warm pool idle minutes"), field: "warmPoolIdleMinutes") {
+        f.number(default: "0")
+    }
+
+    f.entry(title: _("Weight"), field: "weight") {
+        f.number(default: "1")
+    }
 }
 
 f.dropdownList(name: "launcher", title: _("Launch method"),
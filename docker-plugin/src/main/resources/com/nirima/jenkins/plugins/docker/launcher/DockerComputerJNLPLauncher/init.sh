@@ -2,14 +2,7 @@
 
 set -uxe
 
-export CONFIG="/tmp/config.sh"
-while [ ! -f "$CONFIG" ]; do
-    echo "No config, sleeping for 1 second"
-    sleep 1
-done
-
-echo "Found config file"
-source "$CONFIG"
+# environment of the container, set by the plugin when it is created
 # require:
 # $JENKINS_URL
 # $COMPUTER_URL
@@ -27,13 +20,17 @@ fi
 
 [ -z "$JENKINS_HOME" ] && cd "$JENKINS_HOME"
 
-# download slave jar
-# TODO some caching mechanism with checksums
-wget "${JENKINS_URL}/jnlpJars/slave.jar" -O "${JENKINS_HOME}/slave.jar"
+# slave jar cached on the docker host and mounted read-only by the plugin, else download it
+SLAVE_JAR="/jenkins-slave-jar/slave.jar"
+if [ ! -f "$SLAVE_JAR" ]; then
+ SLAVE_JAR="${JENKINS_HOME}/slave.jar"
+ wget "${JENKINS_URL}/jnlpJars/slave.jar" -O "$SLAVE_JAR"
+fi
 
 env
 
-RUN_OPTS="-jnlpUrl ${JENKINS_URL}/${COMPUTER_URL}/slave-agent.jnlp "
+# the node serving the jnlp file is added before the container starts
+RUN_OPTS="-jnlpUrl ${JENKINS_URL%/}/${COMPUTER_URL}slave-agent.jnlp "
 if [ ! -z "$COMPUTER_SECRET" ]; then
  RUN_OPTS+=" -secret $COMPUTER_SECRET "
 fi
@@ -43,4 +40,4 @@ if [ ! -z "$JENKINS_USER" ] && [ x"$JENKINS_USER" != "xroot" ]; then
  RUN_CMD="su - $JENKINS_USER -c"
 fi
 
-$RUN_CMD "java -jar slave.jar $RUN_OPTS"
+$RUN_CMD "java -jar $SLAVE_JAR $RUN_OPTS"
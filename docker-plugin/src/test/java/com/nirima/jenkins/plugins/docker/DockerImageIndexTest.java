@@ -0,0 +1,30 @@
+package com.nirima.jenkins.plugins.docker;
+
+import org.junit.Test;
+
+import static com.nirima.jenkins.plugins.docker.DockerImageIndex.fullImageName;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class DockerImageIndexTest {
+
+    @Test
+    public void shouldTreatImageWithoutTagAsLatest() {
+        assertThat(fullImageName("jenkins/slave"), equalTo("jenkins/slave:latest"));
+    }
+
+    @Test
+    public void shouldKeepExplicitTag() {
+        assertThat(fullImageName("jenkins/slave:1.0"), equalTo("jenkins/slave:1.0"));
+    }
+
+    @Test
+    public void shouldKeepRegistryPort() {
+        assertThat(fullImageName("registry:5000/jenkins/slave"), equalTo("registry:5000/jenkins/slave:latest"));
+    }
+
+    @Test
+    public void shouldKeepDigestReference() {
+        assertThat(fullImageName("jenkins/slave@sha256:0123abcd"), equalTo("jenkins/slave@sha256:0123abcd"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.github.dockerjava.api.model.Container;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.nirima.jenkins.plugins.docker.DockerOrphanReaper.GRACE_MILLIS;
+import static com.nirima.jenkins.plugins.docker.DockerOrphanReaper.isOrphan;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DockerOrphanReaperTest {
+
+    private static final String CONTAINER_ID = "c0ffee";
+
+    private final DockerCloud cloud = new DockerCloud("reaper", Collections.<DockerTemplate>emptyList(),
+            "http://localhost:4243", 100, 10, 10, null, null);
+
+    private final long now = System.currentTimeMillis();
+
+    private final Set<String> noSlaves = Collections.emptySet();
+
+    @Test
+    public void shouldReapOldContainerWithoutSlave() {
+        assertThat(isOrphan(cloud, container(now - GRACE_MILLIS), noSlaves, now), is(true));
+    }
+
+    @Test
+    public void shouldKeepContainerOfSlave() {
+        assertThat(isOrphan(cloud, container(now - GRACE_MILLIS), Collections.singleton(CONTAINER_ID), now),
+                is(false));
+    }
+
+    @Test
+    public void shouldKeepYoungContainer() {
+        assertThat(isOrphan(cloud, container(now - GRACE_MILLIS / 2), noSlaves, now), is(false));
+    }
+
+    @Test
+    public void shouldKeepOldContainerWhileItIsProvisioned() {
+        // i.e. pooled for long, then handed out
+        cloud.recordHandedOut(CONTAINER_ID);
+
+        assertThat(isOrphan(cloud, container(now - 2 * GRACE_MILLIS), noSlaves, now + GRACE_MILLIS), is(false));
+    }
+
+    @Test
+    public void shouldKeepOldContainerForGraceAfterProvisioning() {
+        cloud.recordHandedOut(CONTAINER_ID);
+        cloud.recordProvisioned(CONTAINER_ID);
+        final Container container = container(now - 2 * GRACE_MILLIS);
+
+        assertThat("node may not be added yet", isOrphan(cloud, container, noSlaves, now), is(false));
+        assertThat("after grace", isOrphan(cloud, container, noSlaves, now + GRACE_MILLIS + 1000), is(true));
+    }
+
+    @Test
+    public void shouldForgetProvisionedContainerAfterGrace() {
+        cloud.recordHandedOut(CONTAINER_ID);
+        cloud.recordProvisioned(CONTAINER_ID);
+
+        cloud.pruneHandedOut(now + GRACE_MILLIS + 1000, GRACE_MILLIS);
+
+        assertThat(cloud.isHandedOut(CONTAINER_ID, now, GRACE_MILLIS), is(false));
+    }
+
+    private static Container container(long createdMillis) {
+        final Container container = mock(Container.class);
+        when(container.getId()).thenReturn(CONTAINER_ID);
+        when(container.getCreated()).thenReturn(TimeUnit.MILLISECONDS.toSeconds(createdMillis));
+        return container;
+    }
+}
@@ -0,0 +1,205 @@
+package com.nirima.jenkins.plugins.docker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.slaves.JNLPLauncher;
+import hudson.slaves.NodeProperty;
+import hudson.slaves.RetentionStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * 50 slaves terminate at once through {@link DockerSlave#terminate()} against a stand-in docker daemon
+ * that takes {@link #DOCKER_MILLIS} per stop and remove, while another thread keeps taking the queue lock,
+ * as queue maintenance does. That thread must never wait for the queue lock as long as a single docker call takes.
+ */
+public class DockerTeardownTest {
+
+    private static final int TERMINATIONS = 50;
+
+    private static final long DOCKER_MILLIS = 200;
+
+    private static final int PARALLEL = 4;
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private HttpServer daemon;
+
+    private ExecutorService daemonThreads;
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private final CountDownLatch removed = new CountDownLatch(TERMINATIONS);
+
+    @Before
+    public void setUp() throws Exception {
+        daemonThreads = Executors.newCachedThreadPool();
+        daemon = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        daemon.setExecutor(daemonThreads);
+        daemon.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    answer(exchange);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        daemon.start();
+    }
+
+    @After
+    public void tearDown() {
+        daemon.stop(0);
+        daemonThreads.shutdownNow();
+    }
+
+    @Test
+    public void shouldKeepQueueResponsiveDuring50Terminations() throws Exception {
+        final DockerCloud cloud = new DockerCloud("teardown", Collections.<DockerTemplate>emptyList(),
+                "http://127.0.0.1:" + daemon.getAddress().getPort(), 100, 10, 10, null, null);
+        cloud.setMaxParallelTeardowns(PARALLEL);
+        jenkins.jenkins.clouds.add(cloud);
+
+        final DockerTemplate template = new DockerTemplate(new DockerTemplateBase("image", "", "", "", "", "", "", "",
+                null, null, "", false, false, false, ""), "", "/home/jenkins", "", "");
+        final List<DockerSlave> slaves = new ArrayList<>();
+        for (int i = 0; i < TERMINATIONS; i++) {
+            final DockerSlave slave = new DockerSlave(template, "container-" + i, "docker-" + i, "", "/home/jenkins",
+                    1, Node.Mode.NORMAL, "", new JNLPLauncher(), RetentionStrategy.NOOP,
+                    Collections.<NodeProperty<?>>emptyList());
+            slave.setCloudId(cloud.name);
+            jenkins.jenkins.addNode(slave);
+            slaves.add(slave);
+        }
+
+        final Queue queue = jenkins.jenkins.getQueue();
+        final AtomicLong maxQueueWaitNanos = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch terminated = new CountDownLatch(TERMINATIONS);
+
+        Thread maintenance = new Thread() {
+            @Override
+            public void run() {
+                while (terminated.getCount() > 0) {
+                    long before = System.nanoTime();
+                    synchronized (queue) {
+                        max(maxQueueWaitNanos, System.nanoTime() - before);
+                    }
+                    Thread.yield();
+                }
+            }
+        };
+        maintenance.start();
+
+        final List<Thread> terminating = new ArrayList<>();
+        for (final DockerSlave slave : slaves) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        slave.terminate();
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    terminated.countDown();
+                }
+            };
+            terminating.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : terminating) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        maintenance.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat("all containers removed", removed.await(60, TimeUnit.SECONDS), is(true));
+        assertThat("terminate failure", failure.get(), nullValue());
+        assertThat("nodes", jenkins.jenkins.getNodes(), empty());
+        assertThat("parallel teardowns", maxRunning.get(), lessThanOrEqualTo(PARALLEL));
+        assertThat("longest wait for the queue lock", maxQueueWaitNanos.get(),
+                lessThan(TimeUnit.MILLISECONDS.toNanos(DOCKER_MILLIS)));
+    }
+
+    /**
+     * Stops and removes take {@link #DOCKER_MILLIS}, the container list is empty and anything else succeeds.
+     */
+    private void answer(HttpExchange exchange) throws IOException, InterruptedException {
+        final String method = exchange.getRequestMethod();
+        final String path = exchange.getRequestURI().getPath();
+
+        if ("GET".equals(method) && path.endsWith("/containers/json")) {
+            final byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+
+        final boolean stop = "POST".equals(method) && path.endsWith("/stop");
+        final boolean remove = "DELETE".equals(method) && path.contains("/containers/");
+        if (stop || remove) {
+            max(maxRunning, running.incrementAndGet());
+            try {
+                Thread.sleep(DOCKER_MILLIS);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+        exchange.sendResponseHeaders(204, -1);
+        if (remove) {
+            removed.countDown();
+        }
+    }
+
+    private static void max(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    private static void max(AtomicInteger max, int value) {
+        int current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.nirima.jenkins.plugins.docker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerTemplateSelectionTest {
+
+    @Mock
+    private DockerCloud cloud;
+
+    @Mock
+    private DockerTemplate small;
+
+    @Mock
+    private DockerTemplate large;
+
+    private List<DockerTemplate> templates;
+
+    private final Map<DockerTemplate, Integer> load = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        templates = Arrays.asList(small, large);
+        load.put(small, 0);
+        load.put(large, 0);
+
+        when(small.getWeight()).thenReturn(1);
+        when(large.getWeight()).thenReturn(3);
+    }
+
+    @Test
+    public void firstAlwaysTakesFirst() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(DockerTemplateSelection.FIRST.select(cloud, templates), sameInstance(small));
+        }
+    }
+
+    @Test
+    public void roundRobinUsesCloudCursor() {
+        when(cloud.nextTemplateIndex(anyInt())).thenReturn(1, 0);
+
+        assertThat(DockerTemplateSelection.ROUND_ROBIN.select(cloud, templates), sameInstance(large));
+        assertThat(DockerTemplateSelection.ROUND_ROBIN.select(cloud, templates), sameInstance(small));
+    }
+
+    @Test
+    public void leastLoadedSpreadsEvenly() {
+        Map<DockerTemplate, Integer> picked = pick(DockerTemplateSelection.LEAST_LOADED, 8);
+
+        assertThat(picked.get(small), is(4));
+        assertThat(picked.get(large), is(4));
+    }
+
+    @Test
+    public void leastLoadedPrefersIdleTemplate() {
+        load.put(small, 5);
+
+        Map<DockerTemplate, Integer> picked = pick(DockerTemplateSelection.LEAST_LOADED, 3);
+
+        assertThat(picked.get(large), is(3));
+    }
+
+    @Test
+    public void weightedSpreadsByWeight() {
+        Map<DockerTemplate, Integer> picked = pick(DockerTemplateSelection.WEIGHTED, 8);
+
+        assertThat(picked.get(small), is(2));
+        assertThat(picked.get(large), is(6));
+    }
+
+    /**
+     * Selects count times, counting each pick as load like a reservation would.
+     */
+    private Map<DockerTemplate, Integer> pick(DockerTemplateSelection selection, int count) {
+        when(cloud.countTemplateLoad(any(DockerTemplate.class))).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return load.get(invocation.getArguments()[0]);
+            }
+        });
+
+        Map<DockerTemplate, Integer> picked = new HashMap<>();
+        picked.put(small, 0);
+        picked.put(large, 0);
+        for (int i = 0; i < count; i++) {
+            DockerTemplate t = selection.select(cloud, templates);
+            picked.put(t, picked.get(t) + 1);
+            load.put(t, load.get(t) + 1);
+        }
+        return picked;
+    }
+}
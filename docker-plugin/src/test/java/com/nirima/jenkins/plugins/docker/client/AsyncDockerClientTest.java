@@ -0,0 +1,79 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import org.junit.Test;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class AsyncDockerClientTest {
+
+    @Test
+    public void shouldQueueCallsOverTheLimit() throws Exception {
+        final AsyncDockerClient calls = new AsyncDockerClient("test", 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(calls.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    int now = running.incrementAndGet();
+                    int max;
+                    while (now > (max = maxRunning.get()) && !maxRunning.compareAndSet(max, now)) {
+                        // retry
+                    }
+                    release.await();
+                    running.decrementAndGet();
+                    return null;
+                }
+            }));
+        }
+
+        while (calls.getActiveCalls() < 2) {
+            Thread.sleep(10);
+        }
+        assertThat("queued", calls.getQueueDepth(), equalTo(3));
+        assertThat("peak", calls.getPeakQueueDepth(), equalTo(3));
+
+        release.countDown();
+        for (ListenableFuture<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat("max running", maxRunning.get(), equalTo(2));
+        assertThat("queued after", calls.getQueueDepth(), equalTo(0));
+    }
+
+    @Test
+    public void shouldCountFailedCalls() throws Exception {
+        AsyncDockerClient calls = new AsyncDockerClient("test", 1);
+
+        ListenableFuture<Void> future = calls.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new IllegalStateException("daemon is gone");
+            }
+        });
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("call should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof IllegalStateException, is(true));
+        }
+        assertThat(calls.getFailedCalls(), equalTo(1L));
+    }
+}
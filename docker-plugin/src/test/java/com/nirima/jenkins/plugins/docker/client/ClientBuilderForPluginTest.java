@@ -3,27 +3,40 @@ package com.nirima.jenkins.plugins.docker.client;
 import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.nirima.jenkins.plugins.docker.DockerCloud;
 import com.nirima.jenkins.plugins.docker.DockerTemplate;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.model.ItemGroup;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
 import org.acegisecurity.Authentication;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.WithoutJenkins;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.cloudbees.plugins.credentials.CredentialsScope.GLOBAL;
 import static com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin.dockerClientConfig;
 import static java.util.Arrays.asList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * @author lanwen (Merkushev Kirill)
@@ -31,6 +44,7 @@ import static org.hamcrest.Matchers.equalTo;
 public class ClientBuilderForPluginTest {
 
     public static final String HTTP_SERVER_URL = "http://server.url/";
+    public static final String UNIX_SERVER_URL = "unix:///var/run/docker.sock";
     public static final String DOCKER_API_VER = "test-ver12";
     public static final String CLOUD_NAME = "cloud-name";
     public static final int READ_TIMEOUT = 10;
@@ -42,9 +56,14 @@ public class ClientBuilderForPluginTest {
     public static final String USERNAME = "usrname";
     public static final String PASSWORD = "pwd021";
 
+    public static final String DAEMON_VERSION = "1.8.2";
+
     @Rule
     public JenkinsRule jenkins = new JenkinsRule();
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     @WithoutJenkins
     public void shouldGetUriVersionReadTimeoutSettingsFromCloud() throws Exception {
@@ -62,6 +81,90 @@ public class ClientBuilderForPluginTest {
         assertThat("read TO", config.getReadTimeout(), equalTo((int) SECONDS.toMillis(READ_TIMEOUT)));
     }
 
+    @Test
+    @WithoutJenkins
+    public void shouldKeepUnixSocketUrl() throws Exception {
+        ClientConfigBuilderForPlugin builder = dockerClientConfig();
+        builder.forServer(UNIX_SERVER_URL, DOCKER_API_VER);
+
+        DockerClientConfig config = builder.config().build();
+        assertThat("server", config.getUri().toString(), equalTo(UNIX_SERVER_URL));
+        assertThat("unix", ClientConfigBuilderForPlugin.isUnixSocket(UNIX_SERVER_URL), is(true));
+        assertThat("http", ClientConfigBuilderForPlugin.isUnixSocket(HTTP_SERVER_URL), is(false));
+    }
+
+    @Test
+    @WithoutJenkins
+    public void shouldTalkToDaemonOnUnixSocket() throws Exception {
+        final File socket = new File(tmp.getRoot(), "docker.sock");
+        final UnixServerSocketChannel server = UnixServerSocketChannel.open();
+        server.socket().bind(new UnixSocketAddress(socket));
+        final List<String> requests = new CopyOnWriteArrayList<>();
+
+        final Thread daemon = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (server.isOpen()) {
+                    try (UnixSocketChannel channel = server.accept()) {
+                        requests.add(answerVersion(channel));
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+        daemon.setDaemon(true);
+        daemon.start();
+
+        try (DockerClient client = ClientBuilderForPlugin.getInstance(dockerClientConfig()
+                .forServer("unix://" + socket.getAbsolutePath(), null)).build()) {
+            assertThat("version", client.versionCmd().exec().getVersion(), equalTo(DAEMON_VERSION));
+            assertThat("request", requests.get(0), containsString("/version"));
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Reads a request up to the end of its headers and answers as the daemon answers /version.
+     *
+     * @return request line
+     */
+    private static String answerVersion(UnixSocketChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        String request = "";
+        while (!request.contains("\r\n\r\n")) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Request ended early: " + request);
+            }
+            request = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+        }
+
+        final String body = "{\"Version\":\"" + DAEMON_VERSION + "\",\"ApiVersion\":\"1.20\"}";
+        final String response = "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + body.length() + "\r\n"
+                + "Connection: close\r\n"
+                + "\r\n"
+                + body;
+        final ByteBuffer out = ByteBuffer.wrap(response.getBytes(StandardCharsets.US_ASCII));
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        return request.substring(0, request.indexOf("\r\n"));
+    }
+
+    @Test
+    @WithoutJenkins
+    public void shouldTellCredentialsOfClient() throws Exception {
+        ClientConfigBuilderForPlugin builder = dockerClientConfig();
+        builder.forServer(HTTP_SERVER_URL, DOCKER_API_VER);
+        assertThat("without", builder.getCredentialsId(), nullValue());
+
+        builder.withCredentials(EMPTY_CREDS);
+        assertThat("blank", builder.getCredentialsId(), nullValue());
+    }
+
     @Test
     public void shouldFindPasswordCredsFromJenkins() throws Exception {
         ClientConfigBuilderForPlugin builder = dockerClientConfig();
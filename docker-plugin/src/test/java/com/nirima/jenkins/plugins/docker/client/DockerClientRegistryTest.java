@@ -0,0 +1,115 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DockerClientConfig;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static com.nirima.jenkins.plugins.docker.client.ClientConfigBuilderForPlugin.dockerClientConfig;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DockerClientRegistryTest {
+
+    private static final String SERVER_URL = "http://server.url/";
+
+    private final DockerClientRegistry registry = DockerClientRegistry.getInstance();
+
+    private final ClientConfigBuilderForPlugin builder = dockerClientConfig().forServer(SERVER_URL, null);
+
+    private final DockerClientConfig config = builder.build();
+
+    // unique per test, the registry is shared
+    private final String key = builder.getKey() + UUID.randomUUID();
+
+    @Test
+    public void shouldShareClientOfKey() throws Exception {
+        try (DockerClientRegistry.Lease lease = registry.lease(key, null, config);
+             DockerClientRegistry.Lease other = registry.lease(key, null, config)) {
+            assertThat(lease.getClient(), sameInstance(other.getClient()));
+        }
+    }
+
+    @Test
+    public void shouldNotEvictLeasedClient() throws Exception {
+        try (DockerClientRegistry.Lease lease = registry.lease(key, null, config)) {
+            registry.evictIdle(System.currentTimeMillis() + DockerClientRegistry.IDLE_MILLIS + 1);
+
+            try (DockerClientRegistry.Lease other = registry.lease(key, null, config)) {
+                assertThat(other.getClient(), sameInstance(lease.getClient()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEvictClientOnceLeaseIsReleased() throws Exception {
+        final DockerClientRegistry.Lease lease = registry.lease(key, null, config);
+        lease.close();
+
+        registry.evictIdle(System.currentTimeMillis() + DockerClientRegistry.IDLE_MILLIS + 1);
+
+        try (DockerClientRegistry.Lease other = registry.lease(key, null, config)) {
+            assertThat(other.getClient(), not(sameInstance(lease.getClient())));
+        }
+    }
+
+    @Test
+    public void shouldCloseOnlyClientsWithChangedCredentials() throws Exception {
+        final String keyWithCredentials = key + "-with-credentials";
+        final String keyWithOther = key + "-with-other";
+        final DockerClient with = client(keyWithCredentials, "credentials-id");
+        final DockerClient withOther = client(keyWithOther, "other-id");
+        final DockerClient without = client(key, null);
+
+        registry.closeWithCredentials("credentials-id");
+
+        assertThat("with", client(keyWithCredentials, "credentials-id"), not(sameInstance(with)));
+        assertThat("with other", client(keyWithOther, "other-id"), sameInstance(withOther));
+        assertThat("without", client(key, null), sameInstance(without));
+    }
+
+    @Test
+    public void shouldKeepClientOfHostForLeasesAfterHostReleasedIt() throws Exception {
+        final DockerClientRegistry.Lease host = registry.acquire(key, "credentials-id", config);
+        final DockerClientRegistry.Lease call = host.share();
+
+        // credentials changed while a call is in flight
+        host.close();
+        registry.closeWithCredentials("credentials-id");
+
+        try (DockerClientRegistry.Lease again = call.share()) {
+            assertThat("still open", again, notNullValue());
+        }
+        call.close();
+        try (DockerClientRegistry.Lease next = registry.lease(key, "credentials-id", config)) {
+            assertThat(next.getClient(), not(sameInstance(call.getClient())));
+        }
+    }
+
+    @Test
+    public void shouldLeaseNewClientAfterClose() throws Exception {
+        final DockerClient client = registry.acquire(key, null, config).getClient();
+        try (DockerClientRegistry.Lease lease = registry.lease(key, null, config)) {
+            registry.closeUnused(Collections.<String>emptySet());
+
+            // the lease keeps the dropped client, new users get a new one
+            assertThat(lease.getClient(), sameInstance(client));
+            try (DockerClientRegistry.Lease next = registry.lease(key, null, config)) {
+                assertThat(next.getClient(), not(sameInstance(client)));
+            }
+        }
+    }
+
+    /**
+     * Client a lease of the key gets, the lease is released right away.
+     */
+    private DockerClient client(String key, String credentialsId) {
+        try (DockerClientRegistry.Lease lease = registry.lease(key, credentialsId, config)) {
+            return lease.getClient();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.nirima.jenkins.plugins.docker.client;
+
+import com.cloudbees.plugins.credentials.Credentials;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.ItemGroup;
+import org.acegisecurity.Authentication;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.cloudbees.plugins.credentials.CredentialsScope.GLOBAL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DockerCredentialsCacheTest {
+
+    private static final String ID_OF_CREDS = "idcreds";
+
+    private static final AtomicInteger lookups = new AtomicInteger();
+
+    /**
+     * What the provider has, replaced when edited as stores do.
+     */
+    private static volatile UsernamePasswordCredentialsImpl stored;
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private final DockerCredentialsCache cache = DockerCredentialsCache.getInstance();
+
+    @Before
+    public void setUp() {
+        cache.invalidateAll();
+        lookups.set(0);
+        stored = new UsernamePasswordCredentialsImpl(GLOBAL, ID_OF_CREDS, null, "usrname", "pwd021");
+    }
+
+    @Test
+    public void shouldLookUpCredentialsOnce() throws Exception {
+        final DockerCredentialsCache.Resolved first = cache.get(ID_OF_CREDS);
+        final DockerCredentialsCache.Resolved second = cache.get(ID_OF_CREDS);
+
+        assertThat(second, sameInstance(first));
+        assertThat("lookups", lookups.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldLookUpAgainAfterTtl() throws Exception {
+        final long now = System.currentTimeMillis();
+        final DockerCredentialsCache.Resolved first = cache.get(ID_OF_CREDS, now);
+
+        assertThat("within ttl", cache.get(ID_OF_CREDS, now + DockerCredentialsCache.TTL_MILLIS - 1),
+                sameInstance(first));
+        assertThat("after ttl", cache.get(ID_OF_CREDS, now + DockerCredentialsCache.TTL_MILLIS),
+                not(sameInstance(first)));
+        assertThat("lookups", lookups.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldLookUpAgainWhenSavedCredentialsChanged() throws Exception {
+        final DockerCredentialsCache.Resolved first = cache.get(ID_OF_CREDS);
+
+        stored = new UsernamePasswordCredentialsImpl(GLOBAL, ID_OF_CREDS, null, "usrname", "changed");
+        new DockerCredentialsCache.CredentialsChangeListener().onChange(SystemCredentialsProvider.getInstance(), null);
+
+        final DockerCredentialsCache.Resolved second = cache.get(ID_OF_CREDS);
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second.getCredentials(), sameInstance((Credentials) stored));
+    }
+
+    @Test
+    public void shouldKeepCredentialsWhenOtherCredentialsAreSaved() throws Exception {
+        final DockerCredentialsCache.Resolved first = cache.get(ID_OF_CREDS);
+
+        new DockerCredentialsCache.CredentialsChangeListener().onChange(SystemCredentialsProvider.getInstance(), null);
+
+        assertThat(cache.get(ID_OF_CREDS), sameInstance(first));
+    }
+
+    @Test
+    public void shouldNotCacheMissingCredentials() throws Exception {
+        assertThat(cache.get("missing"), nullValue());
+        assertThat(cache.get("missing"), nullValue());
+
+        assertThat("lookups", lookups.get(), equalTo(2));
+    }
+
+    @TestExtension
+    public static class TestCreds extends CredentialsProvider {
+        @NonNull
+        @Override
+        public <C extends Credentials> List<C> getCredentials(Class<C> type,
+                                                              ItemGroup itemGroup,
+                                                              Authentication authentication) {
+            if (!type.isAssignableFrom(UsernamePasswordCredentialsImpl.class)) {
+                return Collections.emptyList();
+            }
+            lookups.incrementAndGet();
+            return Collections.singletonList((C) stored);
+        }
+    }
+}
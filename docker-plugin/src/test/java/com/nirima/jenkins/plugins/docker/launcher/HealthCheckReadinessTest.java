@@ -0,0 +1,94 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Event;
+import com.nirima.jenkins.plugins.docker.DockerContainerInventory;
+import com.nirima.jenkins.plugins.docker.DockerEventStream;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HealthCheckReadinessTest {
+
+    private static final String CONTAINER_ID = "c0ffee";
+
+    private final DockerHost host = mock(DockerHost.class);
+
+    private final DockerEventStream eventStream = mock(DockerEventStream.class);
+
+    private final DockerContainerInventory inventory = mock(DockerContainerInventory.class);
+
+    private final InspectContainerResponse inspect = mock(InspectContainerResponse.class);
+
+    private final HealthCheckReadiness readiness = new HealthCheckReadiness();
+
+    @Before
+    public void setUp() {
+        when(host.getEventStream()).thenReturn(eventStream);
+        when(host.getContainerInventory()).thenReturn(inventory);
+        when(inspect.getId()).thenReturn(CONTAINER_ID);
+        readiness.setTimeoutSeconds(1);
+    }
+
+    @Test
+    public void shouldBeReadyOnHealthyEvent() throws Exception {
+        final ListenableFuture<Boolean> up = readiness.whenUp(host, inspect);
+        assertThat("before the event", up.isDone(), is(false));
+
+        final DockerEventStream.Listener listener = listener();
+        listener.onEvent(event("other", DockerContainerInventory.HEALTHY));
+        listener.onEvent(event(CONTAINER_ID, DockerContainerInventory.HEALTHY));
+
+        assertThat(up.get(5, TimeUnit.SECONDS), is(true));
+        verify(eventStream).removeListener(listener);
+    }
+
+    @Test
+    public void shouldBeReadyWhenHealthyBeforeListening() throws Exception {
+        when(inventory.isHealthy(CONTAINER_ID)).thenReturn(true);
+
+        assertThat(readiness.waitUp(host, inspect), is(true));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenContainerDies() throws Exception {
+        final ListenableFuture<Boolean> up = readiness.whenUp(host, inspect);
+
+        listener().onEvent(event(CONTAINER_ID, "die"));
+
+        assertThat(up.get(5, TimeUnit.SECONDS), is(false));
+    }
+
+    @Test
+    public void shouldNotBeReadyAfterTimeout() throws Exception {
+        final ListenableFuture<Boolean> up = readiness.whenUp(host, inspect);
+        final DockerEventStream.Listener listener = listener();
+
+        assertThat(up.get(5, TimeUnit.SECONDS), is(false));
+        verify(eventStream, timeout(1000)).removeListener(listener);
+    }
+
+    private DockerEventStream.Listener listener() {
+        final ArgumentCaptor<DockerEventStream.Listener> listener = ArgumentCaptor.forClass(DockerEventStream.Listener.class);
+        verify(eventStream).addListener(listener.capture());
+        return listener.getValue();
+    }
+
+    private static Event event(String containerId, String status) {
+        final Event event = mock(Event.class);
+        when(event.getId()).thenReturn(containerId);
+        when(event.getStatus()).thenReturn(status);
+        return event;
+    }
+}
@@ -0,0 +1,96 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import com.nirima.jenkins.plugins.docker.client.DockerClientRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LogReadinessTest {
+
+    private static final String CONTAINER_ID = "c0ffee";
+
+    private final DockerHost host = mock(DockerHost.class);
+
+    private final DockerClient client = mock(DockerClient.class, RETURNS_DEEP_STUBS);
+
+    private final InspectContainerResponse inspect = mock(InspectContainerResponse.class);
+
+    private final LogReadiness readiness = new LogReadiness("listening on port \\d+");
+
+    @Before
+    public void setUp() {
+        when(host.leaseClient()).thenAnswer(new Answer<DockerClientRegistry.Lease>() {
+            @Override
+            public DockerClientRegistry.Lease answer(InvocationOnMock invocation) {
+                return DockerClientRegistry.leaseOwn(client);
+            }
+        });
+        when(inspect.getId()).thenReturn(CONTAINER_ID);
+        readiness.setTimeoutSeconds(1);
+    }
+
+    @Test
+    public void shouldBeReadyOnMatchingLine() throws Exception {
+        logs(new ByteArrayInputStream("starting\nlistening on port 8080\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(readiness.waitUp(host, inspect), is(true));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenLogEndsWithoutMatch() throws Exception {
+        logs(new ByteArrayInputStream("starting\nexiting\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(readiness.waitUp(host, inspect), is(false));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenNothingIsLoggedInTime() throws Exception {
+        logs(new SilentLog());
+
+        assertThat(readiness.waitUp(host, inspect), is(false));
+    }
+
+    private void logs(InputStream stream) {
+        when(client.logContainerCmd(CONTAINER_ID).withStdOut().withStdErr().withFollowStream().exec())
+                .thenReturn(stream);
+    }
+
+    /**
+     * Followed log of a container that writes nothing, ends when closed.
+     */
+    private static class SilentLog extends InputStream {
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
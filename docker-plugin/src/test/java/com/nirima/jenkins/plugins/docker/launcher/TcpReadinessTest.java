@@ -0,0 +1,77 @@
+package com.nirima.jenkins.plugins.docker.launcher;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Ports;
+import com.nirima.jenkins.plugins.docker.DockerHost;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TcpReadinessTest {
+
+    private static final int CONTAINER_PORT = 8080;
+
+    private final DockerHost host = mock(DockerHost.class);
+
+    private final InspectContainerResponse inspect = mock(InspectContainerResponse.class, RETURNS_DEEP_STUBS);
+
+    private ServerSocket server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        when(host.getHostname()).thenReturn("localhost");
+        when(inspect.getId()).thenReturn("c0ffee");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void shouldBeReadyWhenPublishedPortAcceptsConnections() throws Exception {
+        publish(server.getLocalPort());
+
+        assertThat(readiness().whenUp(host, inspect).get(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenPortStaysClosed() throws Exception {
+        final int port = server.getLocalPort();
+        server.close();
+        publish(port);
+
+        assertThat(readiness().whenUp(host, inspect).get(10, TimeUnit.SECONDS), is(false));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenPortIsNotPublished() throws Exception {
+        when(inspect.getNetworkSettings().getPorts()).thenReturn(new Ports());
+
+        assertThat(readiness().waitUp(host, inspect), is(false));
+    }
+
+    private TcpReadiness readiness() {
+        final TcpReadiness readiness = new TcpReadiness(CONTAINER_PORT, null);
+        readiness.setTimeoutSeconds(1);
+        return readiness;
+    }
+
+    private void publish(int hostPort) {
+        final Ports ports = new Ports();
+        ports.bind(new ExposedPort(CONTAINER_PORT), new Ports.Binding("0.0.0.0", hostPort));
+        when(inspect.getNetworkSettings().getPorts()).thenReturn(ports);
+    }
+}
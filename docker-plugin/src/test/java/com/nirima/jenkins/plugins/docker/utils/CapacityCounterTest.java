@@ -0,0 +1,81 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class CapacityCounterTest {
+
+    @Test
+    public void shouldRespectTotalCap() {
+        CapacityCounter<String> counter = new CapacityCounter<>();
+
+        assertThat(counter.tryReserve("a", 8, 10, 0, 0), is(true));
+        assertThat(counter.tryReserve("b", 8, 10, 0, 0), is(true));
+        assertThat(counter.tryReserve("c", 8, 10, 0, 0), is(false));
+        assertThat(counter.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRespectKeyCapAndGiveBackTotal() {
+        CapacityCounter<String> counter = new CapacityCounter<>();
+
+        assertThat(counter.tryReserve("a", 0, 10, 1, 2), is(true));
+        assertThat(counter.tryReserve("a", 0, 10, 1, 2), is(false));
+        assertThat(counter.get(), equalTo(1));
+        assertThat(counter.get("a"), equalTo(1));
+
+        counter.release("a");
+        assertThat(counter.get(), equalTo(0));
+        assertThat(counter.tryReserve("a", 0, 10, 1, 2), is(true));
+    }
+
+    @Test
+    public void shouldIgnoreReleaseWithoutReservation() {
+        CapacityCounter<String> counter = new CapacityCounter<>();
+        counter.release("a");
+        assertThat(counter.tryReserve("a", 0, 1, 0, 0), is(true));
+        counter.release("b");
+        assertThat(counter.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotOvershootCapsUnderContention() throws Exception {
+        final CapacityCounter<String> counter = new CapacityCounter<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                final String key = "t" + (i % 4);
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return counter.tryReserve(key, 0, 50, 0, 10);
+                    }
+                }));
+            }
+
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+
+            assertThat("reserved", reserved, equalTo(40));
+            assertThat(counter.get(), equalTo(40));
+            assertThat(counter.get("t0"), equalTo(10));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.Test;
+
+import static com.nirima.jenkins.plugins.docker.utils.CircuitBreaker.MIN_OPEN_MILLIS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class CircuitBreakerTest {
+
+    private static class ManualClockBreaker extends CircuitBreaker {
+        long now = 1000;
+
+        ManualClockBreaker() {
+            super(0.5, 1000);
+        }
+
+        @Override
+        long now() {
+            return now;
+        }
+    }
+
+    @Test
+    public void shouldStayClosedBelowFailureRate() {
+        CircuitBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < 10; i++) {
+            breaker.record(i % 3 == 0, 10);
+        }
+
+        assertThat(breaker.allowsCalls(), is(true));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void shouldOpenOnSlowCalls() {
+        CircuitBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.record(false, 5000);
+        }
+
+        assertThat(breaker.allowsCalls(), is(false));
+        assertThat(breaker.getRemainingOpenMillis(), equalTo(MIN_OPEN_MILLIS));
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulTrial() {
+        ManualClockBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.record(true, 10);
+        }
+
+        breaker.now += MIN_OPEN_MILLIS;
+        assertThat(breaker.allowsCalls(), is(true));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+
+        breaker.record(false, 10);
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void shouldLetOneTrialThroughWhenHalfOpen() {
+        ManualClockBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.record(true, 10);
+        }
+
+        breaker.now += MIN_OPEN_MILLIS;
+        assertThat("trial", breaker.allowsCalls(), is(true));
+        assertThat("while trial is in flight", breaker.allowsCalls(), is(false));
+
+        breaker.record(false, 10);
+        assertThat("after trial", breaker.allowsCalls(), is(true));
+    }
+
+    @Test
+    public void shouldLetNewTrialThroughWhenTrialIsNotRecorded() {
+        ManualClockBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.record(true, 10);
+        }
+
+        breaker.now += MIN_OPEN_MILLIS;
+        assertThat("trial", breaker.allowsCalls(), is(true));
+
+        breaker.now += MIN_OPEN_MILLIS;
+        assertThat("next trial", breaker.allowsCalls(), is(true));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void shouldBackOffLongerAfterFailedTrial() {
+        ManualClockBreaker breaker = new ManualClockBreaker();
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++) {
+            breaker.record(true, 10);
+        }
+
+        breaker.now += MIN_OPEN_MILLIS;
+        assertThat(breaker.allowsCalls(), is(true));
+        breaker.record(true, 10);
+
+        assertThat(breaker.allowsCalls(), is(false));
+        assertThat(breaker.getRemainingOpenMillis(), equalTo(2 * MIN_OPEN_MILLIS));
+    }
+}
@@ -0,0 +1,68 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ImagePullProgressTest {
+
+    private static final String PULL_RESPONSE =
+            "{\"status\":\"Pulling repository jenkins/slave\"}\r\n" +
+            "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":512,\"total\":1024},\"id\":\"aaa\"}\r\n" +
+            "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":1024,\"total\":1024},\"id\":\"aaa\"}\r\n" +
+            "{\"status\":\"Download complete\",\"progressDetail\":{},\"id\":\"aaa\"}\r\n" +
+            "{\"status\":\"Already exists\",\"progressDetail\":{},\"id\":\"bbb\"}\r\n" +
+            "{\"status\":\"Downloading\",\"progressDetail\":{\"current\":10,\"total\":20},\"id\":\"ccc\",\"progress\":\"[=> {\\\"}] \"}\r\n" +
+            "{\"status\":\"Status: Downloaded newer image for jenkins/slave:latest\"}\r\n";
+
+    @Rule
+    public ExpectedException ex = ExpectedException.none();
+
+    @Test
+    public void shouldCountBytesPerLayerAcrossSplitReads() throws Exception {
+        ImagePullProgress progress = new ImagePullProgress("jenkins/slave", null)
+                .consume(new TrickleInputStream(stream(PULL_RESPONSE)));
+
+        assertThat("messages", progress.getMessages(), equalTo(7));
+        assertThat("layers", progress.getLayerBytes().size(), equalTo(3));
+        assertThat("layer aaa", progress.getLayerBytes().get("aaa"), equalTo(1024L));
+        assertThat("bytes", progress.getBytes(), equalTo(1034L));
+    }
+
+    @Test
+    public void shouldFailOnPullError() throws Exception {
+        ex.expect(IOException.class);
+        ex.expectMessage("not found");
+
+        new ImagePullProgress("jenkins/none", null).consume(stream(
+                "{\"status\":\"Pulling repository jenkins/none\"}\r\n" +
+                "{\"errorDetail\":{\"message\":\"Error: image jenkins/none not found\"},\"error\":\"Error: image jenkins/none not found\"}\r\n"));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns at most 3 bytes per read, like a slow chunked response.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+}
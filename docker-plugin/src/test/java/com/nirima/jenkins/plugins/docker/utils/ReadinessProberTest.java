@@ -0,0 +1,192 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.After;
+import org.junit.Test;
+import shaded.com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class ReadinessProberTest {
+
+    private final ReadinessProber prober = ReadinessProber.getInstance();
+
+    private final List<ServerSocket> servers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final ExecutorService accepting = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() throws IOException {
+        scheduler.shutdownNow();
+        accepting.shutdownNow();
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldBeReadyOnceBannerArrives() throws Exception {
+        final ServerSocket server = sshd();
+
+        long before = currentTimeMillis();
+        prober.probe("localhost", server.getLocalPort(), "SSH-", 5, SECONDS).get(5, SECONDS);
+        assertThat("ready without a fixed wait", currentTimeMillis() - before, lessThan(1000L));
+    }
+
+    @Test
+    public void shouldBeReadySoonAfterPortOpens() throws Exception {
+        final ServerSocket closed = new ServerSocket(0);
+        final int port = closed.getLocalPort();
+        closed.close();
+
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    servers.add(serve(new ServerSocket(port)));
+                } catch (IOException e) {
+                    throw new RuntimeException("Can't bind port", e);
+                }
+            }
+        }, 300, MILLISECONDS);
+
+        long before = currentTimeMillis();
+        prober.probe("localhost", port, "SSH-", 10, SECONDS).get(10, SECONDS);
+        assertThat("retried within milliseconds", currentTimeMillis() - before, lessThan(1500L));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenConnectionClosesWithoutBanner() throws Exception {
+        final ServerSocket server = new ServerSocket(0);
+        servers.add(server);
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        server.accept().close();
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+
+        expectTimeout(server.getLocalPort());
+    }
+
+    @Test
+    public void shouldTimeOutOnClosedPort() throws Exception {
+        final ServerSocket closed = new ServerSocket(0);
+        final int port = closed.getLocalPort();
+        closed.close();
+
+        expectTimeout(port);
+    }
+
+    @Test
+    public void shouldStopProbingWhenCancelled() throws Exception {
+        final ServerSocket server = new ServerSocket(0);
+        servers.add(server);
+        final AtomicInteger accepted = new AtomicInteger();
+        scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try {
+                        server.accept().close();
+                        accepted.incrementAndGet();
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+
+        final ListenableFuture<Void> probe = prober.probe("localhost", server.getLocalPort(), "SSH-", 30, SECONDS);
+        while (accepted.get() < 2) {
+            Thread.sleep(10);
+        }
+        probe.cancel(false);
+
+        // an attempt in flight may still connect
+        Thread.sleep(500);
+        final int afterCancel = accepted.get();
+        Thread.sleep(1000);
+        assertThat("attempts after cancel", accepted.get(), equalTo(afterCancel));
+    }
+
+    @Test
+    public void shouldProbeManyPortsAtOnce() throws Exception {
+        final List<ServerSocket> ports = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ports.add(sshd());
+        }
+
+        long before = currentTimeMillis();
+        final List<ListenableFuture<Void>> probes = new ArrayList<>();
+        for (ServerSocket port : ports) {
+            probes.add(prober.probe("localhost", port.getLocalPort(), "SSH-", 10, SECONDS));
+        }
+        for (ListenableFuture<Void> probe : probes) {
+            probe.get(10, SECONDS);
+        }
+        assertThat("probed in parallel", currentTimeMillis() - before, lessThan(2000L));
+    }
+
+    private void expectTimeout(int port) throws Exception {
+        try {
+            prober.probe("localhost", port, "SSH-", 500, MILLISECONDS).get(5, SECONDS);
+            fail("port should not be ready");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+        }
+    }
+
+    private ServerSocket sshd() throws IOException {
+        final ServerSocket server = serve(new ServerSocket(0));
+        servers.add(server);
+        return server;
+    }
+
+    private ServerSocket serve(final ServerSocket server) {
+        accepting.submit(new Runnable() {
+            @Override
+            public void run() {
+                while (!server.isClosed()) {
+                    try (Socket socket = server.accept()) {
+                        OutputStream out = socket.getOutputStream();
+                        out.write("SSH-2.0-test\r\n".getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            }
+        });
+        return server;
+    }
+}
@@ -0,0 +1,52 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class ResourceCounterTest {
+
+    private static final ContainerResources HOST = ContainerResources.of(4096, 4096);
+
+    @Test
+    public void shouldPackUntilMemoryIsFull() {
+        ResourceCounter counter = new ResourceCounter();
+        ContainerResources used = ContainerResources.of(1024, 0);
+        ContainerResources big = ContainerResources.of(2048, 512);
+
+        assertThat(counter.tryReserve(used, HOST, big), is(true));
+        assertThat(counter.tryReserve(used, HOST, big), is(false));
+        assertThat(counter.tryReserve(used, HOST, ContainerResources.of(1024, 0)), is(true));
+        assertThat(counter.get(), equalTo(ContainerResources.of(3072, 512)));
+    }
+
+    @Test
+    public void shouldGiveBackMemoryWhenCpuIsFull() {
+        ResourceCounter counter = new ResourceCounter();
+
+        assertThat(counter.tryReserve(ContainerResources.NONE, HOST, ContainerResources.of(256, 8192)), is(false));
+        assertThat(counter.get(), equalTo(ContainerResources.NONE));
+    }
+
+    @Test
+    public void shouldTreatZeroAsUnlimited() {
+        ResourceCounter counter = new ResourceCounter();
+        ContainerResources memoryOnly = new ContainerResources(1024L * 1024 * 1024, 0);
+
+        assertThat(counter.tryReserve(ContainerResources.NONE, memoryOnly, ContainerResources.of(512, 100000)), is(true));
+        assertThat(counter.tryReserve(ContainerResources.NONE, ContainerResources.NONE, ContainerResources.of(100000, 0)), is(true));
+    }
+
+    @Test
+    public void shouldReleaseReservation() {
+        ResourceCounter counter = new ResourceCounter();
+        ContainerResources amount = ContainerResources.of(4096, 0);
+
+        assertThat(counter.tryReserve(ContainerResources.NONE, HOST, amount), is(true));
+        assertThat(counter.tryReserve(ContainerResources.NONE, HOST, amount), is(false));
+        counter.release(amount);
+        assertThat(counter.tryReserve(ContainerResources.NONE, HOST, amount), is(true));
+    }
+}
@@ -0,0 +1,101 @@
+package com.nirima.jenkins.plugins.docker.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void shouldRunConcurrentCallsForSameKeyOnce() throws Exception {
+        final SingleFlight<String, Integer> flight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Callable<Integer> pull = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                release.await();
+                return calls.incrementAndGet();
+            }
+        };
+
+        final List<FutureTask<Integer>> results = new ArrayList<>();
+        final List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            FutureTask<Integer> result = new FutureTask<>(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return flight.execute("image", pull);
+                }
+            });
+            results.add(result);
+            callers.add(new Thread(result));
+        }
+        for (Thread caller : callers) {
+            caller.start();
+        }
+
+        try {
+            // one caller waits for the release, the others for its result
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (Thread caller : callers) {
+                while (caller.getState() != Thread.State.WAITING) {
+                    if (System.nanoTime() - deadline > 0) {
+                        fail(caller.getName() + " is not waiting after 5 s but " + caller.getState());
+                    }
+                    Thread.sleep(1);
+                }
+            }
+            release.countDown();
+
+            for (FutureTask<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), equalTo(1));
+            }
+            assertThat("calls", calls.get(), equalTo(1));
+        } finally {
+            release.countDown();
+            for (Thread caller : callers) {
+                caller.interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void shouldRunAgainAfterCompletion() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> pull = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        };
+
+        assertThat(flight.execute("image", pull), equalTo(1));
+        assertThat(flight.execute("image", pull), equalTo(2));
+        assertThat(flight.isInFlight("image"), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRethrowCallFailure() throws Exception {
+        new SingleFlight<String, Void>().execute("image", new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                throw new IOException("pull failed");
+            }
+        });
+    }
+}